@@ -0,0 +1,58 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Run by the build (process-resources) with the single-file source launcher: writes a .gz next to every css, js
+// and svg file under the given directory, which spring.web.resources.chain.compressed then serves to browsers that
+// accept gzip. A variant that would not be smaller is not written, so the original is served.
+public class GzipResources {
+    private static final List<String> EXTENSIONS = List.of(".css", ".js", ".svg");
+
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args[0]);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        int written = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = file.getFileName().toString();
+                if (EXTENSIONS.stream().anyMatch(name::endsWith) && gzip(file)) {
+                    written++;
+                }
+            }
+        }
+        System.out.println("Wrote " + written + " gzip variants under " + root);
+    }
+
+    private static boolean gzip(Path file) throws IOException {
+        byte[] original = Files.readAllBytes(file);
+        Path target = file.resolveSibling(file.getFileName() + ".gz");
+        Path temp = file.resolveSibling(file.getFileName() + ".gz.tmp");
+        try (OutputStream out = new BestGzipOutputStream(Files.newOutputStream(temp))) {
+            out.write(original);
+        }
+        if (Files.size(temp) >= original.length) {
+            Files.delete(temp);
+            Files.deleteIfExists(target);
+            return false;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        return true;
+    }
+
+    // Built once and served many times, so the slowest level is worth it
+    private static final class BestGzipOutputStream extends GZIPOutputStream {
+        BestGzipOutputStream(OutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.techouts.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.ui.Model;
+
+import java.util.concurrent.TimeUnit;
+
+// Calls the admin listing handlers directly (filtering, sorting and keyset paging), without view rendering
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdminListingBenchmark {
+
+    @Param({"created", "categoryAsc"})
+    public String productSort;
+
+    @Param({"createdAtDesc", "statusAsc"})
+    public String orderSort;
+
+    @Benchmark
+    public Model products(ShopState shop) {
+        Model model = new ExtendedModelMap();
+        shop.adminController.products(productSort, null, shop.randomCategory(), null, null, shop.adminSession, model);
+        return model;
+    }
+
+    @Benchmark
+    public Model productsSearch(ShopState shop) {
+        Model model = new ExtendedModelMap();
+        shop.adminController.products(productSort, "product 1", "ALL", null, null, shop.adminSession, model);
+        return model;
+    }
+
+    @Benchmark
+    public Model orders(ShopState shop) {
+        Model model = new ExtendedModelMap();
+        shop.adminController.orders(null, null, orderSort, null, null, null, shop.adminSession, model);
+        return model;
+    }
+
+    @Benchmark
+    public Model ordersByStatusAndUser(ShopState shop) {
+        Model model = new ExtendedModelMap();
+        shop.adminController.orders("PLACED", "user1", orderSort, null, null, null, shop.adminSession, model);
+        return model;
+    }
+}
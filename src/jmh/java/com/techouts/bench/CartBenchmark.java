@@ -0,0 +1,31 @@
+package com.techouts.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// addToCart is a PostgreSQL upsert (insert ... on conflict do update), which H2 does not support:
+// run this class with -Dbench.datasource.url pointing at a scratch PostgreSQL database
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartBenchmark {
+
+    @Benchmark
+    public void addToCart(ShopState shop) {
+        shop.cartItemsService.addToCart(shop.randomUserId(), shop.randomProductId(), 1);
+    }
+
+    @Benchmark
+    public int getCartItemCount(ShopState shop) {
+        return shop.cartItemsService.getCartItemCount(shop.randomUserId());
+    }
+}
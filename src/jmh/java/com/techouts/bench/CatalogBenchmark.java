@@ -0,0 +1,54 @@
+package com.techouts.bench;
+
+import com.techouts.dto.ProductSummary;
+import com.techouts.entity.Products;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogBenchmark {
+
+    // false evicts the catalog cache before every call, measuring the repository path underneath it
+    @Param({"true", "false"})
+    public boolean cached;
+
+    @Benchmark
+    public List<ProductSummary> getProductsByCategory(ShopState shop) {
+        if (!cached) {
+            shop.catalogCache.evictAll();
+        }
+        return shop.productService.getProducts(shop.randomCategory());
+    }
+
+    @Benchmark
+    public List<ProductSummary> getAllProducts(ShopState shop) {
+        if (!cached) {
+            shop.catalogCache.evictAll();
+        }
+        return shop.productService.getProducts(null);
+    }
+
+    @Benchmark
+    public Products getById(ShopState shop) {
+        if (!cached) {
+            shop.catalogCache.evictAll();
+        }
+        return shop.productService.getById(shop.randomProductId());
+    }
+}
@@ -0,0 +1,67 @@
+package com.techouts.bench;
+
+import com.techouts.entity.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderBenchmark {
+
+    // Refills one user's cart before each invocation with plain inserts, so it also runs on H2
+    @State(Scope.Thread)
+    public static class FilledCart {
+        private static final AtomicInteger NEXT_USER = new AtomicInteger();
+
+        @Param({"1", "10", "50"})
+        public int lines;
+
+        long userId;
+        long cartId;
+
+        @Setup(Level.Trial)
+        public void pickUser(ShopState shop) {
+            userId = shop.userIds[NEXT_USER.getAndIncrement() % shop.userIds.length];
+            cartId = shop.cartRepository.findIdByUserId(userId).orElseThrow();
+        }
+
+        @Setup(Level.Invocation)
+        public void fill(ShopState shop) {
+            shop.jdbcTemplate.update("delete from cart_item where cart_id = ?", cartId);
+            List<Object[]> rows = new ArrayList<>(lines);
+            int offset = (int) (System.nanoTime() % shop.productIds.length);
+            for (int i = 0; i < lines; i++) {
+                rows.add(new Object[]{cartId, shop.productIds[(offset + i) % shop.productIds.length], 1});
+            }
+            shop.jdbcTemplate.batchUpdate("insert into cart_item (cart_id, product_id, quantity) values (?, ?, ?)", rows);
+        }
+    }
+
+    @Benchmark
+    public Order buyNow(ShopState shop) {
+        return shop.orderService.placeOrder(shop.randomUserId(), shop.randomProductId(), 1, "1 Benchmark Road", "Upi");
+    }
+
+    @Benchmark
+    public Order cartCheckout(ShopState shop, FilledCart cart) {
+        return shop.orderService.placeOrder(cart.userId, null, null, "1 Benchmark Road", "Upi");
+    }
+}
@@ -0,0 +1,207 @@
+package com.techouts.bench;
+
+import com.techouts.SpringBootEcommerceApplication;
+import com.techouts.cache.ProductCatalogCache;
+import com.techouts.controller.AdminController;
+import com.techouts.entity.Cart;
+import com.techouts.entity.Order;
+import com.techouts.entity.OrderItems;
+import com.techouts.entity.OrderStatus;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import com.techouts.entity.UserRole;
+import com.techouts.repository.CartRepository;
+import com.techouts.repository.OrderRepository;
+import com.techouts.repository.ProductRepository;
+import com.techouts.repository.UserRepository;
+import com.techouts.search.ProductSearchIndex;
+import com.techouts.service.CartItemsService;
+import com.techouts.service.OrderService;
+import com.techouts.service.ProductService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Boots the application once per fork against a throwaway database and seeds it. Sizes and the database are
+// set with -Dbench.products, -Dbench.users, -Dbench.orders, -Dbench.categories and -Dbench.datasource.url;
+// the default is an embedded PostgreSQL started per fork, since the cart upserts and row locks do not run on H2.
+// The schema is recreated, so never point it at real data.
+@State(Scope.Benchmark)
+public class ShopState {
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    ConfigurableApplicationContext context;
+    private EmbeddedPostgres embeddedPostgres;
+
+    ProductService productService;
+    CartItemsService cartItemsService;
+    OrderService orderService;
+    AdminController adminController;
+    ProductCatalogCache catalogCache;
+    CartRepository cartRepository;
+    JdbcTemplate jdbcTemplate;
+    MockHttpSession adminSession;
+
+    long[] userIds;
+    long[] productIds;
+    String[] categories;
+
+    @Setup(Level.Trial)
+    public void start() {
+        String url = System.getProperty("bench.datasource.url");
+        if (url == null) {
+            try {
+                embeddedPostgres = EmbeddedPostgres.start();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not start the embedded PostgreSQL", ex);
+            }
+            url = embeddedPostgres.getJdbcUrl("postgres", "postgres");
+        }
+        boolean h2 = url.startsWith("jdbc:h2:");
+        context = SpringApplication.run(SpringBootEcommerceApplication.class,
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + System.getProperty("bench.datasource.username", h2 ? "sa" : "postgres"),
+                "--spring.datasource.password=" + System.getProperty("bench.datasource.password", h2 ? "" : "postgres"),
+                "--spring.datasource.driver-class-name=" + (h2 ? "org.h2.Driver" : "org.postgresql.Driver"),
+                "--spring.jpa.database-platform=" + (h2 ? "org.hibernate.dialect.H2Dialect" : "org.hibernate.dialect.PostgreSQLDialect"),
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--server.port=0",
+                "--logging.level.root=WARN");
+
+        productService = context.getBean(ProductService.class);
+        cartItemsService = context.getBean(CartItemsService.class);
+        orderService = context.getBean(OrderService.class);
+        adminController = context.getBean(AdminController.class);
+        catalogCache = context.getBean(ProductCatalogCache.class);
+        cartRepository = context.getBean(CartRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        seed(Integer.getInteger("bench.products", 2000), Integer.getInteger("bench.users", 200),
+                Integer.getInteger("bench.orders", 5000), Integer.getInteger("bench.categories", 20));
+        context.getBean(ProductSearchIndex.class).rebuild();
+        catalogCache.evictAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    long randomUserId() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+
+    long randomProductId() {
+        return productIds[ThreadLocalRandom.current().nextInt(productIds.length)];
+    }
+
+    String randomCategory() {
+        return categories[ThreadLocalRandom.current().nextInt(categories.length)];
+    }
+
+    private void seed(int productCount, int userCount, int orderCount, int categoryCount) {
+        Random random = new Random(42);
+        TransactionTemplate tx = context.getBean(TransactionTemplate.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        OrderRepository orderRepository = context.getBean(OrderRepository.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode("password123");
+
+        categories = new String[categoryCount];
+        for (int i = 0; i < categoryCount; i++) {
+            categories[i] = "Category " + i;
+        }
+
+        List<Products> products = tx.execute(status -> {
+            List<Products> batch = new ArrayList<>(productCount);
+            for (int i = 0; i < productCount; i++) {
+                Products product = new Products();
+                product.setName("Product " + i + " " + categories[i % categoryCount]);
+                product.setCategory(categories[i % categoryCount]);
+                product.setPrice(BigDecimal.valueOf(100 + random.nextInt(100_000), 2));
+                // Effectively unlimited, so long runs never fail on stock
+                product.setStock(1_000_000_000);
+                product.setDescription("Benchmark product " + i + " with a description long enough to be indexed");
+                product.setImageUrl("/placeholder-product.svg");
+                batch.add(product);
+            }
+            return productRepository.saveAll(batch);
+        });
+        productIds = products.stream().mapToLong(Products::getId).toArray();
+
+        List<User> users = tx.execute(status -> {
+            List<User> batch = new ArrayList<>(userCount + 1);
+            for (int i = 0; i <= userCount; i++) {
+                User user = new User();
+                boolean admin = i == userCount;
+                user.setName(admin ? "Bench Admin" : "Bench User " + i);
+                user.setUsername(admin ? "benchadmin" : "user" + i);
+                user.setEmail((admin ? "benchadmin" : "user" + i) + "@bench.local");
+                user.setPassword(passwordHash);
+                user.setRole(admin ? UserRole.ROLE_ADMIN : UserRole.ROLE_USER);
+                user.setAddress("1 Benchmark Road");
+                User saved = userRepository.save(user);
+                Cart cart = new Cart();
+                cart.setUser(saved);
+                cartRepository.save(cart);
+                batch.add(saved);
+            }
+            return batch;
+        });
+        User admin = users.remove(users.size() - 1);
+        userIds = users.stream().mapToLong(User::getId).toArray();
+
+        tx.executeWithoutResult(status -> {
+            List<Order> batch = new ArrayList<>(orderCount);
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < orderCount; i++) {
+                Order order = new Order();
+                order.setUser(users.get(random.nextInt(users.size())));
+                order.setCreatedAt(now.minusMinutes(random.nextInt(365 * 24 * 60)));
+                order.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+                order.setShippingAddress("1 Benchmark Road");
+                order.setPaymentMode("Upi");
+                BigDecimal total = BigDecimal.ZERO;
+                int lines = 1 + random.nextInt(5);
+                for (int line = 0; line < lines; line++) {
+                    Products product = products.get(random.nextInt(products.size()));
+                    OrderItems item = new OrderItems();
+                    item.setOrder(order);
+                    item.setProduct(product);
+                    item.setQuantity(1 + random.nextInt(3));
+                    item.setPrice(product.getPrice());
+                    order.getOrderItems().add(item);
+                    total = total.add(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+                }
+                order.setTotalAmount(total);
+                batch.add(order);
+            }
+            orderRepository.saveAll(batch);
+        });
+
+        adminSession = new MockHttpSession();
+        adminSession.setAttribute("USER_ID", admin.getId());
+        adminSession.setAttribute("IS_ADMIN", true);
+    }
+}
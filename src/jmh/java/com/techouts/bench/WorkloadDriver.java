@@ -0,0 +1,327 @@
+package com.techouts.bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Closed-loop workload against a running instance: each virtual user logs in as one generated user (see the
+// "datagen" profile) and repeats search -> browse category -> product page -> add to cart -> checkout -> wait for
+// the order -> sometimes cancel, with no think time unless --think-ms is set. Steps are timed individually and
+// summarised as throughput and latency percentiles on stdout and in a CSV report, tagged with --label so runs
+// of different builds can be compared.
+public class WorkloadDriver {
+    private static final Pattern IDEMPOTENCY_KEY = Pattern.compile("name=\"idempotencyKey\" value=\"([^\"]+)\"");
+    private static final Pattern PRODUCT_ITEM = Pattern.compile("\"id\":(\\d+),[^}]*?\"category\":\"([^\"]+)\"");
+    private static final Pattern ORDER_ID = Pattern.compile("\"orderId\":(\\d+)");
+    private static final Pattern STATUS = Pattern.compile("\"status\":\"([A-Z]+)\"");
+
+    private final Options options;
+    private final Map<String, Step> steps = new ConcurrentHashMap<>();
+    private final LongAdder iterations = new LongAdder();
+    private volatile boolean recording;
+
+    WorkloadDriver(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        new WorkloadDriver(options).run();
+    }
+
+    void run() throws Exception {
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        System.out.printf("Driving %s with %d users: %ds warmup, %ds measured%n",
+                options.target, options.users, options.warmupSeconds, options.durationSeconds);
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.users; i++) {
+                int index = i;
+                users.submit(() -> runUser(index, end));
+            }
+            Thread.sleep(Math.max(0, TimeUnit.NANOSECONDS.toMillis(warmupEnd - System.nanoTime())));
+            steps.clear();
+            iterations.reset();
+            recording = true;
+        }
+        report();
+    }
+
+    private void runUser(int index, long end) {
+        Random random = new Random(options.seed + index);
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String username = options.usernamePrefix + (1 + index % options.userCount);
+        try {
+            HttpResponse<String> login = post(client, "login", "/login",
+                    "identifier=" + encode(username) + "&password=" + encode(options.password));
+            if (login.statusCode() != 302 || location(login).contains("/login")) {
+                System.err.println("Login failed for " + username + "; generate users with the datagen profile first");
+                return;
+            }
+            while (System.nanoTime() < end) {
+                iteration(client, random);
+                if (options.thinkMillis > 0) {
+                    Thread.sleep(options.thinkMillis);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            System.err.println("User " + username + " stopped: " + ex);
+        }
+    }
+
+    private void iteration(HttpClient client, Random random) throws IOException, InterruptedException {
+        String term = options.terms[random.nextInt(options.terms.length)];
+        HttpResponse<String> search = get(client, "search", "/products/search?size=20&q=" + encode(term));
+        List<String[]> products = new ArrayList<>();
+        Matcher matcher = PRODUCT_ITEM.matcher(search.body());
+        while (matcher.find()) {
+            products.add(new String[]{matcher.group(1), matcher.group(2)});
+        }
+        if (products.isEmpty()) {
+            return;
+        }
+
+        String[] first = products.get(random.nextInt(products.size()));
+        if (options.browseCategories) {
+            get(client, "browse-category", "/home?category=" + encode(first[1]));
+        }
+        get(client, "product-page", "/product/" + first[0]);
+
+        int lines = 1 + random.nextInt(options.maxCartLines);
+        for (int i = 0; i < lines; i++) {
+            String productId = products.get(random.nextInt(products.size()))[0];
+            post(client, "add-to-cart", "/cart/add", "productId=" + productId + "&quantity=1");
+        }
+
+        HttpResponse<String> checkout = get(client, "checkout-page", "/checkout");
+        Matcher key = IDEMPOTENCY_KEY.matcher(checkout.body());
+        String idempotencyKey = key.find() ? key.group(1) : "";
+        long submitted = System.nanoTime();
+        HttpResponse<String> place = post(client, "place-order", "/checkout/place",
+                "shippingAddress=" + encode("1 Load Test Road") + "&paymentMode=Upi&idempotencyKey=" + encode(idempotencyKey));
+        if (place.statusCode() != 302 || !location(place).contains("/checkout/pending")) {
+            return;
+        }
+
+        String orderId = awaitOrder(client, idempotencyKey);
+        if (orderId == null) {
+            return;
+        }
+        record("order-completed", System.nanoTime() - submitted, true);
+        if (random.nextDouble() < options.cancelRatio) {
+            post(client, "cancel-order", "/orders/cancel", "orderId=" + orderId);
+        }
+        if (recording) {
+            iterations.increment();
+        }
+    }
+
+    private String awaitOrder(HttpClient client, String idempotencyKey) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            HttpResponse<String> status = get(client, "order-status", "/checkout/status?key=" + encode(idempotencyKey));
+            Matcher state = STATUS.matcher(status.body());
+            if (state.find()) {
+                if ("PLACED".equals(state.group(1))) {
+                    Matcher orderId = ORDER_ID.matcher(status.body());
+                    return orderId.find() ? orderId.group(1) : null;
+                }
+                if ("FAILED".equals(state.group(1))) {
+                    record("order-failed", 0, true);
+                    return null;
+                }
+            }
+            Thread.sleep(options.pollMillis);
+        }
+        record("order-timeout", 0, false);
+        return null;
+    }
+
+    private HttpResponse<String> get(HttpClient client, String step, String path) throws IOException, InterruptedException {
+        return send(client, step, HttpRequest.newBuilder(URI.create(options.target + path)).GET());
+    }
+
+    private HttpResponse<String> post(HttpClient client, String step, String path, String form)
+            throws IOException, InterruptedException {
+        return send(client, step, HttpRequest.newBuilder(URI.create(options.target + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)));
+    }
+
+    private HttpResponse<String> send(HttpClient client, String step, HttpRequest.Builder request)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        HttpResponse<String> response = client.send(request.timeout(Duration.ofSeconds(60)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        int code = response.statusCode();
+        record(step, System.nanoTime() - started, code < 400);
+        if (code == 429) {
+            record(step + "-429", 0, true);
+        }
+        return response;
+    }
+
+    private void record(String step, long nanos, boolean ok) {
+        if (recording) {
+            steps.computeIfAbsent(step, Step::new).add(nanos, ok);
+        }
+    }
+
+    private void report() throws IOException {
+        double seconds = options.durationSeconds;
+        List<String> lines = new ArrayList<>();
+        lines.add("label,step,count,errors,per_second,mean_ms,p50_ms,p95_ms,p99_ms,max_ms");
+        System.out.printf("%n%-20s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                "step", "count", "errors", "per_sec", "mean_ms", "p50_ms", "p95_ms", "p99_ms", "max_ms");
+        steps.values().stream().sorted((a, b) -> a.name.compareTo(b.name)).forEach(step -> {
+            long[] sorted = step.sortedLatencies();
+            double mean = Arrays.stream(sorted).average().orElse(0) / 1e6;
+            double p50 = percentile(sorted, 0.50);
+            double p95 = percentile(sorted, 0.95);
+            double p99 = percentile(sorted, 0.99);
+            double max = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6;
+            double rate = sorted.length / seconds;
+            System.out.printf("%-20s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    step.name, sorted.length, step.errors.sum(), rate, mean, p50, p95, p99, max);
+            lines.add(String.format("%s,%s,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f",
+                    options.label, step.name, sorted.length, step.errors.sum(), rate, mean, p50, p95, p99, max));
+        });
+        System.out.printf("%nCompleted %d browse-to-order iterations (%.2f/s)%n",
+                iterations.sum(), iterations.sum() / seconds);
+        lines.add(String.format("%s,iterations,%d,0,%.2f,,,,,", options.label, iterations.sum(), iterations.sum() / seconds));
+
+        Path report = Path.of(options.reportDir, "workload-" + options.label + "-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+        Files.createDirectories(report.getParent());
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(report))) {
+            lines.forEach(writer::println);
+        }
+        System.out.println("Report written to " + report);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    private static String location(HttpResponse<String> response) {
+        return response.headers().firstValue("Location").orElse("");
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static final class Step {
+        final String name;
+        final List<Long> latencies = new ArrayList<>();
+        final LongAdder errors = new LongAdder();
+        final AtomicLong count = new AtomicLong();
+
+        Step(String name) {
+            this.name = name;
+        }
+
+        void add(long nanos, boolean ok) {
+            count.incrementAndGet();
+            if (!ok) {
+                errors.increment();
+            }
+            synchronized (latencies) {
+                latencies.add(nanos);
+            }
+        }
+
+        long[] sortedLatencies() {
+            synchronized (latencies) {
+                return latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            }
+        }
+    }
+
+    static final class Options {
+        String target = "http://localhost:8080";
+        int users = 20;
+        int warmupSeconds = 10;
+        int durationSeconds = 60;
+        String usernamePrefix = "loaduser";
+        int userCount = 10000;
+        String password = "password123";
+        String[] terms = {"laptop", "mobile", "buds", "tablet", "watch", "camera", "speaker", "monitor"};
+        boolean browseCategories = true;
+        int maxCartLines = 3;
+        double cancelRatio = 0.3;
+        long thinkMillis = 0;
+        long pollMillis = 100;
+        long seed = 42;
+        String label = "run";
+        String reportDir = "target";
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                if (!args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+                }
+                values.put(args[i].substring(2), args[i + 1]);
+            }
+            values.forEach((name, value) -> {
+                switch (name) {
+                    case "target" -> options.target = value.replaceAll("/+$", "");
+                    case "users" -> options.users = Integer.parseInt(value);
+                    case "warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                    case "duration" -> options.durationSeconds = Integer.parseInt(value);
+                    case "username-prefix" -> options.usernamePrefix = value;
+                    case "user-count" -> options.userCount = Integer.parseInt(value);
+                    case "password" -> options.password = value;
+                    case "terms" -> options.terms = value.split(",");
+                    case "browse-categories" -> options.browseCategories = Boolean.parseBoolean(value);
+                    case "max-cart-lines" -> options.maxCartLines = Integer.parseInt(value);
+                    case "cancel-ratio" -> options.cancelRatio = Double.parseDouble(value);
+                    case "think-ms" -> options.thinkMillis = Long.parseLong(value);
+                    case "poll-ms" -> options.pollMillis = Long.parseLong(value);
+                    case "seed" -> options.seed = Long.parseLong(value);
+                    case "label" -> options.label = value;
+                    case "report-dir" -> options.reportDir = value;
+                    default -> throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            });
+            return options;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.techouts.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class CacheMetrics {
+
+    private CacheMetrics() {
+    }
+
+    static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats s = cache.stats();
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("size", cache.estimatedSize());
+        view.put("hits", s.hitCount());
+        view.put("misses", s.missCount());
+        view.put("hitRate", s.hitRate());
+        view.put("evictions", s.evictionCount());
+        view.put("loadFailures", s.loadFailureCount());
+        return view;
+    }
+}
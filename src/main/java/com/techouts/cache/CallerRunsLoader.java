@@ -0,0 +1,38 @@
+package com.techouts.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+final class CallerRunsLoader {
+
+    private CallerRunsLoader() {
+    }
+
+    // A synchronous Caffeine load runs inside ConcurrentHashMap.compute, holding a monitor for the whole database
+    // round trip and pinning a virtual thread to its carrier. Here only an empty future is installed under that lock;
+    // the installing thread runs the loader afterwards, still inside its own transaction. Concurrent readers of the
+    // key wait on the same future, and an invalidation during the load drops it, so a stale result is never cached.
+    static <K, V> V get(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> future = cache.get(key, (k, executor) -> mine);
+        if (future == mine) {
+            try {
+                mine.complete(loader.apply(key));
+            } catch (RuntimeException | Error ex) {
+                mine.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.techouts.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+@Component
+public class CartCountCache {
+
+    // user id -> total quantity in the user's cart
+    private final AsyncCache<Long, Integer> counts;
+
+    public CartCountCache(@Value("${cart.count-cache.max-users:100000}") long maxUsers,
+                          @Value("${cart.count-cache.ttl:30m}") Duration ttl) {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    public int get(Long userId, ToIntFunction<Long> loader) {
+        return CallerRunsLoader.get(counts, userId, loader::applyAsInt);
+    }
+
+    // Only adjusts a count that is already cached; an absent entry is loaded fresh on the next read, and a load
+    // still in flight may predate this change, so it is dropped rather than adjusted
+    public void adjust(Long userId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        AfterCommit.run(() -> counts.asMap().computeIfPresent(userId, (id, count) ->
+                count.isDone() && !count.isCompletedExceptionally()
+                        ? CompletableFuture.completedFuture(Math.max(0, count.join() + delta))
+                        : null));
+    }
+
+    // Runs a read that also yields the cart total and re-syncs the cached count from it. Only an entry that is
+    // still the one cached before the read is replaced: if a change adjusted it meanwhile, the read may predate
+    // that change, so the adjusted count is kept. An absent entry is left to load on the next read.
+    public <T> T resync(Long userId, Supplier<T> read, ToIntFunction<T> total) {
+        CompletableFuture<Integer> before = counts.getIfPresent(userId);
+        T result = read.get();
+        if (before != null && before.isDone() && !before.isCompletedExceptionally()) {
+            CompletableFuture<Integer> count = CompletableFuture.completedFuture(total.applyAsInt(result));
+            AfterCommit.run(() -> counts.asMap().replace(userId, before, count));
+        }
+        return result;
+    }
+
+    public void set(Long userId, int count) {
+        AfterCommit.run(() -> counts.put(userId, CompletableFuture.completedFuture(count)));
+    }
+
+    public void invalidate(Long userId) {
+        AfterCommit.run(() -> counts.synchronous().invalidate(userId));
+    }
+
+    public Map<String, Object> stats() {
+        return CacheMetrics.describe(counts.synchronous());
+    }
+}
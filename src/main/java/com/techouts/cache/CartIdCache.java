@@ -0,0 +1,41 @@
+package com.techouts.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+@Component
+public class CartIdCache {
+
+    // user id -> cart id; a user's cart row is created once and never re-keyed, so entries need no TTL
+    private final AsyncCache<Long, Long> cartIds;
+
+    public CartIdCache(@Value("${cart.id-cache.max-users:100000}") long maxUsers) {
+        this.cartIds = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .recordStats()
+                .buildAsync();
+    }
+
+    // A loader returning null caches nothing, for users whose cart has not been created yet
+    public Long get(Long userId, Function<Long, Long> loader) {
+        return CallerRunsLoader.get(cartIds, userId, loader);
+    }
+
+    public void put(Long userId, Long cartId) {
+        AfterCommit.run(() -> cartIds.put(userId, CompletableFuture.completedFuture(cartId)));
+    }
+
+    public void invalidate(Long userId) {
+        AfterCommit.run(() -> cartIds.synchronous().invalidate(userId));
+    }
+
+    public Map<String, Object> stats() {
+        return CacheMetrics.describe(cartIds.synchronous());
+    }
+}
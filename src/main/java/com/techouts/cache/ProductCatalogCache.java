@@ -0,0 +1,108 @@
+package com.techouts.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.techouts.dto.ProductDetails;
+import com.techouts.dto.ProductSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Component
+public class ProductCatalogCache {
+    public static final String ALL_CATEGORIES = "*";
+    private static final String CATEGORY_LIST_KEY = "categories";
+
+    private final AsyncCache<Long, ProductDetails> byId;
+    private final AsyncCache<String, List<ProductSummary>> byCategory;
+    private final AsyncCache<String, List<String>> categoryList;
+
+    public ProductCatalogCache(@Value("${catalog.cache.max-products:10000}") long maxProducts,
+                               @Value("${catalog.cache.max-categories:200}") long maxCategories,
+                               @Value("${catalog.cache.ttl:10m}") Duration ttl) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxProducts)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.byCategory = Caffeine.newBuilder()
+                .maximumSize(maxCategories)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        this.categoryList = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    // Values are shared by every request thread, so only immutable records are cached, never managed entities
+    public ProductDetails getProduct(Long productId, Function<Long, ProductDetails> loader) {
+        return CallerRunsLoader.get(byId, productId, loader);
+    }
+
+    public List<ProductSummary> getCategory(String category, Function<String, List<ProductSummary>> loader) {
+        return CallerRunsLoader.get(byCategory, category, key -> List.copyOf(loader.apply(key)));
+    }
+
+    public List<String> getCategories(Supplier<List<String>> loader) {
+        return CallerRunsLoader.get(categoryList, CATEGORY_LIST_KEY, key -> List.copyOf(loader.get()));
+    }
+
+    // Stock moved: the product row and the listings showing it are stale, the category list is not
+    public void evictStock(Long productId, String category) {
+        AfterCommit.run(() -> {
+            byId.synchronous().invalidate(productId);
+            byCategory.synchronous().invalidate(category);
+            byCategory.synchronous().invalidate(ALL_CATEGORIES);
+        });
+    }
+
+    public void evictStock(Collection<Long> productIds, Collection<String> categories) {
+        AfterCommit.run(() -> {
+            byId.synchronous().invalidateAll(productIds);
+            byCategory.synchronous().invalidateAll(categories);
+            byCategory.synchronous().invalidate(ALL_CATEGORIES);
+        });
+    }
+
+    // Product created, edited or deleted: pass both the old and new category when it changed
+    public void evictProduct(Long productId, String... categories) {
+        AfterCommit.run(() -> {
+            if (productId != null) {
+                byId.synchronous().invalidate(productId);
+            }
+            for (String category : categories) {
+                if (category != null) {
+                    byCategory.synchronous().invalidate(category);
+                }
+            }
+            byCategory.synchronous().invalidate(ALL_CATEGORIES);
+            categoryList.synchronous().invalidateAll();
+        });
+    }
+
+    public void evictAll() {
+        AfterCommit.run(() -> {
+            byId.synchronous().invalidateAll();
+            byCategory.synchronous().invalidateAll();
+            categoryList.synchronous().invalidateAll();
+        });
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("productsById", CacheMetrics.describe(byId.synchronous()));
+        stats.put("productsByCategory", CacheMetrics.describe(byCategory.synchronous()));
+        stats.put("categories", CacheMetrics.describe(categoryList.synchronous()));
+        return stats;
+    }
+}
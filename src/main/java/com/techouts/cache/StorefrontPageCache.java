@@ -0,0 +1,62 @@
+package com.techouts.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Rendered storefront HTML for anonymous visitors, keyed by the (category, search) request parameters and
+// weighed by body size: the unfiltered listing renders every product, and one huge page must not push out
+// all the others. Catalog writes call invalidateAll(); stock changes do not, the page does not show stock.
+@Component
+public class StorefrontPageCache {
+
+    private final boolean enabled;
+    private final AsyncCache<PageKey, RenderedPage> pages;
+
+    public StorefrontPageCache(@Value("${storefront.page-cache.enabled:false}") boolean enabled,
+                               @Value("${storefront.page-cache.max-size:64MB}") DataSize maxSize,
+                               @Value("${storefront.page-cache.ttl:10m}") Duration ttl) {
+        this.enabled = enabled;
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((PageKey key, RenderedPage page) -> page.body().length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    public RenderedPage get(String category, String search, Supplier<RenderedPage> renderer) {
+        if (!enabled) {
+            return renderer.get();
+        }
+        return CallerRunsLoader.get(pages, new PageKey(category, search), key -> renderer.get());
+    }
+
+    public void invalidateAll() {
+        pages.synchronous().invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        return CacheMetrics.describe(pages.synchronous());
+    }
+
+    private record PageKey(String category, String search) {
+    }
+
+    // Encoded once so a hit is a plain byte copy; the ETag is a digest of exactly these bytes
+    public record RenderedPage(byte[] body, String etag) {
+
+        public static RenderedPage of(String html) {
+            byte[] body = html.getBytes(StandardCharsets.UTF_8);
+            return new RenderedPage(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.techouts.checkout;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.techouts.entity.Order;
+import com.techouts.metrics.CheckoutMetrics;
+import com.techouts.service.OrderService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+// Bounded in-process checkout queue. A dispatcher hands submissions to virtual threads as they arrive, keeping the
+// ones that touch the same products one after another instead of contending for the same stock rows.
+@Component
+public class CheckoutQueue {
+    private static final Logger log = LoggerFactory.getLogger(CheckoutQueue.class);
+    private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9_-]{8,64}");
+    private static final String GENERIC_FAILURE = "We could not place your order. Please try again.";
+
+    private final OrderService orderService;
+    private final CheckoutMetrics checkoutMetrics;
+    private final BlockingQueue<CheckoutTicket> queue;
+    private final int batchSize;
+    // Caps concurrent checkout transactions below the connection pool size so page requests still get connections
+    private final Semaphore workerPermits;
+    // Guards runningProducts; signalled when a submission arrives or a checkout finishes
+    private final Lock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Products of the checkouts currently running
+    private final Set<Long> runningProducts = new HashSet<>();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    // "userId:key" -> ticket; keeps outcomes around for polling and for deduplicating resubmissions
+    private final Cache<String, CheckoutTicket> tickets;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public CheckoutQueue(OrderService orderService,
+                         CheckoutMetrics checkoutMetrics,
+                         @Value("${checkout.queue.capacity:500}") int capacity,
+                         @Value("${checkout.queue.batch-size:32}") int batchSize,
+                         @Value("${checkout.queue.max-concurrency:8}") int maxConcurrency,
+                         @Value("${checkout.ticket-ttl:1h}") Duration ticketTtl) {
+        this.orderService = orderService;
+        this.checkoutMetrics = checkoutMetrics;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.workerPermits = new Semaphore(maxConcurrency);
+        this.tickets = Caffeine.newBuilder()
+                .expireAfterWrite(ticketTtl)
+                .build();
+        this.dispatcher = Thread.ofPlatform().name("checkout-dispatcher").daemon().unstarted(this::dispatch);
+    }
+
+    @PostConstruct
+    void start() {
+        dispatcher.start();
+    }
+
+    // Lets the dispatcher finish what is already queued before the order services go away
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        dispatcher.join(TimeUnit.SECONDS.toMillis(30));
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    public static boolean isValidKey(String idempotencyKey) {
+        return idempotencyKey != null && KEY_PATTERN.matcher(idempotencyKey).matches();
+    }
+
+    // Returns the existing ticket for a repeated key, or empty when the queue is full
+    public Optional<CheckoutTicket> submit(Long userId, String idempotencyKey, Long productId, Integer quantity,
+                                           String shippingAddress, String paymentMode, Set<Long> productIds) {
+        String ticketKey = ticketKey(userId, idempotencyKey);
+        CheckoutTicket ticket = new CheckoutTicket(idempotencyKey, userId, productId,
+                quantity, shippingAddress, paymentMode, productIds);
+        CheckoutTicket existing = tickets.asMap().putIfAbsent(ticketKey, ticket);
+        if (existing != null) {
+            return Optional.of(existing);
+        }
+        if (!running || !queue.offer(ticket)) {
+            tickets.asMap().remove(ticketKey, ticket);
+            checkoutMetrics.record(CheckoutMetrics.Outcome.QUEUE_FULL);
+            return Optional.empty();
+        }
+        signalDispatcher();
+        return Optional.of(ticket);
+    }
+
+    private void signalDispatcher() {
+        lock.lock();
+        try {
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Optional<CheckoutTicket> find(Long userId, String idempotencyKey) {
+        return Optional.ofNullable(tickets.getIfPresent(ticketKey(userId, idempotencyKey)));
+    }
+
+    // Takes up to batchSize submissions off the queue at a time and starts each one as soon as a permit is free and
+    // none of its products belongs to a checkout still running or to an earlier submission still waiting, so
+    // checkouts of the same product run in submission order and a slow one holds back only those
+    private void dispatch() {
+        List<CheckoutTicket> waiting = new ArrayList<>(batchSize);
+        lock.lock();
+        try {
+            while (running || !queue.isEmpty() || !waiting.isEmpty()) {
+                if (waiting.size() < batchSize) {
+                    queue.drainTo(waiting, batchSize - waiting.size());
+                }
+                if (!startRunnable(waiting)) {
+                    changed.await(1, TimeUnit.SECONDS);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Starts every waiting submission that can run now; false when none could. Called with the lock held.
+    private boolean startRunnable(List<CheckoutTicket> waiting) {
+        boolean started = false;
+        Set<Long> heldBack = new HashSet<>();
+        for (Iterator<CheckoutTicket> it = waiting.iterator(); it.hasNext(); ) {
+            CheckoutTicket ticket = it.next();
+            Set<Long> productIds = ticket.getProductIds();
+            if (Collections.disjoint(productIds, runningProducts) && Collections.disjoint(productIds, heldBack)
+                    && workerPermits.tryAcquire()) {
+                it.remove();
+                runningProducts.addAll(productIds);
+                start(ticket);
+                started = true;
+            } else {
+                heldBack.addAll(productIds);
+            }
+        }
+        return started;
+    }
+
+    private void start(CheckoutTicket ticket) {
+        try {
+            workers.submit(() -> {
+                try {
+                    process(ticket);
+                } finally {
+                    finished(ticket);
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.error("Checkout dispatcher could not start the checkout for user {}", ticket.getUserId(), ex);
+            ticket.markFailed(GENERIC_FAILURE);
+            checkoutMetrics.record(CheckoutMetrics.Outcome.FAILED);
+            finished(ticket);
+        }
+    }
+
+    private void finished(CheckoutTicket ticket) {
+        lock.lock();
+        try {
+            runningProducts.removeAll(ticket.getProductIds());
+            workerPermits.release();
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void process(CheckoutTicket ticket) {
+        ticket.markProcessing();
+        try {
+            Order order = orderService.placeOrder(ticket.getUserId(), ticket.getProductId(), ticket.getQuantity(),
+                    ticket.getShippingAddress(), ticket.getPaymentMode(), ticket.getIdempotencyKey());
+            ticket.markPlaced(order.getId());
+            checkoutMetrics.record(CheckoutMetrics.Outcome.PLACED);
+        } catch (IllegalArgumentException ex) {
+            ticket.markFailed(ex.getMessage());
+            checkoutMetrics.rejected(ex);
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance committed an order with the same key first; that instance counted it
+            orderService.findByIdempotencyKey(ticket.getUserId(), ticket.getIdempotencyKey())
+                    .ifPresentOrElse(order -> ticket.markPlaced(order.getId()), () -> {
+                        ticket.markFailed(GENERIC_FAILURE);
+                        checkoutMetrics.record(CheckoutMetrics.Outcome.FAILED);
+                    });
+        } catch (RuntimeException ex) {
+            log.error("Checkout failed for user {}", ticket.getUserId(), ex);
+            ticket.markFailed(GENERIC_FAILURE);
+            checkoutMetrics.record(CheckoutMetrics.Outcome.FAILED);
+        }
+    }
+
+    private static String ticketKey(Long userId, String idempotencyKey) {
+        return userId + ":" + idempotencyKey;
+    }
+}
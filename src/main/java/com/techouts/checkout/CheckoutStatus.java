@@ -0,0 +1,8 @@
+package com.techouts.checkout;
+
+public enum CheckoutStatus {
+    QUEUED,
+    PROCESSING,
+    PLACED,
+    FAILED
+}
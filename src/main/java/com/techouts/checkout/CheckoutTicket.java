@@ -0,0 +1,87 @@
+package com.techouts.checkout;
+
+import java.util.Set;
+
+// One accepted checkout submission; the worker updates the outcome fields while the client polls them
+public class CheckoutTicket {
+    private final String idempotencyKey;
+    private final Long userId;
+    private final Long productId;
+    private final Integer quantity;
+    private final String shippingAddress;
+    private final String paymentMode;
+    private final Set<Long> productIds;
+
+    private volatile CheckoutStatus status = CheckoutStatus.QUEUED;
+    private volatile Long orderId;
+    private volatile String error;
+
+    CheckoutTicket(String idempotencyKey, Long userId, Long productId, Integer quantity,
+                   String shippingAddress, String paymentMode, Set<Long> productIds) {
+        this.idempotencyKey = idempotencyKey;
+        this.userId = userId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.shippingAddress = shippingAddress;
+        this.paymentMode = paymentMode;
+        this.productIds = Set.copyOf(productIds);
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
+    public String getPaymentMode() {
+        return paymentMode;
+    }
+
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+
+    public CheckoutStatus getStatus() {
+        return status;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isDone() {
+        return status == CheckoutStatus.PLACED || status == CheckoutStatus.FAILED;
+    }
+
+    void markProcessing() {
+        status = CheckoutStatus.PROCESSING;
+    }
+
+    void markPlaced(Long orderId) {
+        this.orderId = orderId;
+        status = CheckoutStatus.PLACED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        status = CheckoutStatus.FAILED;
+    }
+}
@@ -0,0 +1,70 @@
+package com.techouts.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class CartItemUniqueBackfillConfig {
+    private static final Logger log = LoggerFactory.getLogger(CartItemUniqueBackfillConfig.class);
+
+    private static final String BACKFILL_BEAN = "cartItemUniqueBackfill";
+
+    // The entity manager, and with it every cart upsert, only starts once the index exists
+    @Bean
+    static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnCartItemUniqueness() {
+        return new EntityManagerFactoryDependsOnPostProcessor(BACKFILL_BEAN);
+    }
+
+    // Cart upserts rely on a unique (cart_id, product_id) index; ddl-auto cannot add it while duplicate lines exist,
+    // so existing duplicates are merged first. On a fresh database the table is missing and ddl-auto creates it
+    // with the constraint. On PostgreSQL a failure stops startup: without the index every add to cart fails.
+    @Bean(BACKFILL_BEAN)
+    public InitializingBean cartItemUniqueBackfill(DataSource dataSource) {
+        // Not the shared JdbcTemplate bean: that one waits for database initialization, which may itself wait for
+        // the entity manager
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        return () -> {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                log.info("Skipping cart item uniqueness backfill on {}", database);
+                return;
+            }
+            try {
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "select to_regclass('cart_item') is not null", Boolean.class))) {
+                    return;
+                }
+                transaction.executeWithoutResult(status -> {
+                    Integer duplicates = jdbcTemplate.queryForObject(
+                            "select count(*) from (select 1 from cart_item group by cart_id, product_id having count(*) > 1) d",
+                            Integer.class);
+                    if (duplicates != null && duplicates > 0) {
+                        jdbcTemplate.update("update cart_item set quantity = (select sum(d.quantity) from cart_item d "
+                                + "where d.cart_id = cart_item.cart_id and d.product_id = cart_item.product_id) "
+                                + "where id in (select min(id) from cart_item group by cart_id, product_id having count(*) > 1)");
+                        int removed = jdbcTemplate.update(
+                                "delete from cart_item where id not in (select min(id) from cart_item group by cart_id, product_id)");
+                        log.info("Merged {} duplicate cart lines into {} rows", removed, duplicates);
+                    }
+                    jdbcTemplate.execute(
+                            "create unique index if not exists uk_cart_item_cart_product on cart_item (cart_id, product_id)");
+                });
+            } catch (RuntimeException ex) {
+                throw new IllegalStateException("Could not create the unique cart line index uk_cart_item_cart_product",
+                        ex);
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.techouts.config;
+
+import com.techouts.stats.DashboardStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// Not under datagen: the one-shot generator never serves the dashboard
+@Configuration
+@Profile("!datagen")
+public class DashboardStatsConfig {
+    private static final Logger log = LoggerFactory.getLogger(DashboardStatsConfig.class);
+
+    // Loaded before the web server starts, so the dashboard never shows the empty counters after a restart. A
+    // failed load is left to the next scheduled reconciliation rather than stopping startup.
+    @Bean
+    public InitializingBean loadDashboardStats(DashboardStats dashboardStats) {
+        return () -> {
+            try {
+                dashboardStats.reconcile();
+            } catch (RuntimeException ex) {
+                log.warn("Skipping dashboard statistics load: {}", ex.getMessage());
+            }
+        };
+    }
+}
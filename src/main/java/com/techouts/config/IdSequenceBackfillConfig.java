@@ -0,0 +1,75 @@
+package com.techouts.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+@Configuration
+public class IdSequenceBackfillConfig {
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceBackfillConfig.class);
+
+    private static final String BACKFILL_BEAN = "idSequenceBackfill";
+
+    // Must match the allocationSize of the entity @SequenceGenerator mappings
+    private static final int ALLOCATION_SIZE = 50;
+
+    // sequence -> table whose ids it generates
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "orders_seq", "orders",
+            "order_items_seq", "order_items"
+    );
+
+    // The entity manager, and with it everything that can insert an order, only starts once the sequences are
+    // positioned, so no request can draw an id that collides with an existing row
+    @Bean
+    static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnIdSequences() {
+        return new EntityManagerFactoryDependsOnPostProcessor(BACKFILL_BEAN);
+    }
+
+    // Tables created under IDENTITY already hold ids; a new sequence would start at 1, so move it past the
+    // existing rows. The sequence is created here, before ddl-auto runs, which then finds it and leaves it alone.
+    // setval never moves a sequence backwards. On PostgreSQL a failure stops startup: serving orders with a
+    // sequence behind the table would fail every checkout on duplicate keys.
+    @Bean(BACKFILL_BEAN)
+    public InitializingBean idSequenceBackfill(DataSource dataSource) {
+        // Not the shared JdbcTemplate bean: that one waits for database initialization, which may itself wait for
+        // the entity manager
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        return () -> {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                log.info("Skipping id sequence backfill on {}", database);
+                return;
+            }
+            for (Map.Entry<String, String> entry : SEQUENCES.entrySet()) {
+                String sequence = entry.getKey();
+                String table = entry.getValue();
+                try {
+                    jdbcTemplate.execute("create sequence if not exists " + sequence
+                            + " start with 1 increment by " + ALLOCATION_SIZE);
+                    if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                            "select to_regclass(?) is not null", Boolean.class, table))) {
+                        continue;
+                    }
+                    Long value = jdbcTemplate.queryForObject(
+                            "select setval('" + sequence + "', greatest((select last_value from " + sequence + "), "
+                                    + "(select coalesce(max(id), 0) from " + table + ") + " + ALLOCATION_SIZE + "))",
+                            Long.class);
+                    log.debug("Sequence {} positioned at {}", sequence, value);
+                } catch (RuntimeException ex) {
+                    throw new IllegalStateException("Could not position id sequence " + sequence
+                            + " past the existing " + table + " rows", ex);
+                }
+            }
+        };
+    }
+}
@@ -2,25 +2,31 @@ package com.techouts.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.ApplicationRunner;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 @Configuration
 public class OrderStatusBackfillConfig {
     private static final Logger log = LoggerFactory.getLogger(OrderStatusBackfillConfig.class);
 
+    // Orders from before the status default may have none; the admin status sort and its keyset cursor compare
+    // status directly, so a null one would be skipped or repeated. ddl-auto only declares not null on new tables,
+    // so existing ones get it here, after the backfill and before the web server starts.
     @Bean
-    public ApplicationRunner backfillOrderStatus(JdbcTemplate jdbcTemplate) {
-        return args -> {
+    @DependsOn("entityManagerFactory")
+    public InitializingBean orderStatusBackfill(JdbcTemplate jdbcTemplate) {
+        return () -> {
             try {
                 int updated = jdbcTemplate.update("update orders set status = 'PLACED' where status is null");
                 if (updated > 0) {
                     log.info("Backfilled {} order rows with default status PLACED", updated);
                 }
-            } catch (Exception ex) {
-                log.warn("Skipping order status backfill: {}", ex.getMessage());
+                jdbcTemplate.execute("alter table orders alter column status set not null");
+            } catch (RuntimeException ex) {
+                throw new IllegalStateException("Could not backfill order status and declare it not null", ex);
             }
         };
     }
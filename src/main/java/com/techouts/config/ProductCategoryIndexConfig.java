@@ -0,0 +1,37 @@
+package com.techouts.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class ProductCategoryIndexConfig {
+    private static final Logger log = LoggerFactory.getLogger(ProductCategoryIndexConfig.class);
+
+    // The admin catalog filters on lower(category) and pages by (lower(category), id), with ids ascending in both
+    // directions, which idx_products_category on the raw column cannot serve; one index per direction, since
+    // ddl-auto has no way to declare expression indexes.
+    // Runs once ddl-auto has created the table and before the web server starts, so no page is ever served
+    // without it.
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public InitializingBean productCategoryIndex(JdbcTemplate jdbcTemplate) {
+        return () -> {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                log.info("Skipping product category index on {}", database);
+                return;
+            }
+            jdbcTemplate.execute(
+                    "create index if not exists idx_products_lower_category_id on products (lower(category), id)");
+            jdbcTemplate.execute("create index if not exists idx_products_lower_category_desc_id "
+                    + "on products (lower(category) desc, id)");
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package com.techouts.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Runs every @Scheduled job: dashboard reconciliation and blob garbage collection. Not under datagen: the
+// scheduler's threads would keep the one-shot generator process alive.
+@Configuration
+@EnableScheduling
+@Profile("!datagen")
+public class SchedulingConfig {
+}
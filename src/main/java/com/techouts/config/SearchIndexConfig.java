@@ -0,0 +1,20 @@
+package com.techouts.config;
+
+import com.techouts.search.ProductSearchIndex;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+@Configuration
+public class SearchIndexConfig {
+
+    // Built once ddl-auto has created the table and before the web server starts: a search served from an empty
+    // index finds nothing, and the page cache would keep that empty page for anonymous visitors. A failed build
+    // stops startup rather than serving a blank search.
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public InitializingBean buildProductSearchIndex(ProductSearchIndex productSearchIndex) {
+        return productSearchIndex::rebuild;
+    }
+}
@@ -1,6 +1,7 @@
 package com.techouts.config;
 
 import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authorization.AuthorizationDecision;
@@ -14,7 +15,8 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   @Value("${management.server.port:-1}") int managementPort) throws Exception {
         http
             // CSRF disabled because authentication is handled via custom HttpSession logic
             .csrf(csrf -> csrf.disable())
@@ -23,13 +25,18 @@ public class SecurityConfig {
                 .requestMatchers(
                     "/", "/index",
                     "/login", "/register",
-                    "/product/**",
+                    "/product/**", "/products/search",
                     "/cart/add", "/cart/count",
                     "/uploads/**",
                     "/css/**", "/js/**", "/images/**", "/webjars/**",
-                    "/error", "/favicon.ico"
+                    "/*.css", "/*.js", "/*.png", "/*.svg",
+                    "/error", "/favicon.ico",
+                    "/actuator/health/**"
                 ).permitAll()
-                .requestMatchers("/admin/**").access(this::sessionAdminAuthorized)
+                // Scrapers cannot log in; they are let in only on a separate management port, which stays internal
+                .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort
+                        && "/actuator/prometheus".equals(request.getRequestURI())).permitAll()
+                .requestMatchers("/admin/**", "/actuator/**").access(this::sessionAdminAuthorized)
                 .anyRequest().access(this::sessionUserAuthorized)
             )
             .exceptionHandling(ex -> ex
@@ -0,0 +1,66 @@
+package com.techouts.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.File;
+import java.io.IOException;
+
+// Hands files of at least sendfileThreshold bytes to Tomcat's sendfile instead of copying them through the JVM:
+// the request attributes below are Tomcat's documented contract for any servlet, and the file is written by the
+// kernel after the handler returns. Text that the connector would gzip on the fly is still copied, since Tomcat
+// never compresses a sendfile response; precompressed variants already carry a Content-Encoding and qualify.
+// Range requests go through the region converter and are unaffected.
+class SendfileResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final long sendfileThreshold;
+
+    SendfileResourceHttpMessageConverter(long sendfileThreshold) {
+        this.sendfileThreshold = sendfileThreshold;
+    }
+
+    @Override
+    protected void writeContent(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+        HttpServletRequest request = currentRequest();
+        if (request != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+                && resource.isFile() && !compressible(outputMessage.getHeaders())) {
+            File file = resource.getFile();
+            long length = file.length();
+            if (length >= sendfileThreshold) {
+                request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, length);
+                // Copies the headers onto the servlet response without writing or committing anything
+                outputMessage.getBody();
+                return;
+            }
+        }
+        super.writeContent(resource, outputMessage);
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet ? servlet.getRequest() : null;
+    }
+
+    private static boolean compressible(HttpHeaders headers) {
+        MediaType type = headers.getContentType();
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) || type == null) {
+            return false;
+        }
+        String subtype = type.getSubtype();
+        return type.getType().equals("text") || subtype.equals("javascript") || subtype.equals("json")
+                || subtype.endsWith("xml");
+    }
+}
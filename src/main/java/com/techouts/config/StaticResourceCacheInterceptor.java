@@ -0,0 +1,52 @@
+package com.techouts.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Cache-Control for static files. A URL carrying the file's content hash (/style-<md5>.css, what @{} links are
+// rewritten to) can never change meaning, so browsers keep it for a year without revalidating. The same file
+// under its plain name, or under a hash that is no longer current, is revalidated against Last-Modified on every
+// use. Handlers with their own cache policy (/uploads) are left alone.
+@Component
+public class StaticResourceCacheInterceptor implements HandlerInterceptor {
+    static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final Pattern CONTENT_VERSION = Pattern.compile("-[0-9a-f]{32}(\\.[^/.]+)$");
+
+    // Lazy: the provider is created by the same MVC configuration this interceptor is registered with
+    private final ObjectProvider<ResourceUrlProvider> resourceUrlProvider;
+
+    public StaticResourceCacheInterceptor(ObjectProvider<ResourceUrlProvider> resourceUrlProvider) {
+        this.resourceUrlProvider = resourceUrlProvider;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof ResourceHttpRequestHandler resources
+                && resources.getCacheControl() == null && resources.getCacheSeconds() < 0) {
+            CacheControl cacheControl = isCurrentVersion(request) ? IMMUTABLE : CacheControl.noCache();
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        }
+        return true;
+    }
+
+    private boolean isCurrentVersion(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Matcher version = CONTENT_VERSION.matcher(path);
+        if (!version.find()) {
+            return false;
+        }
+        String versioned = resourceUrlProvider.getObject().getForLookupPath(version.replaceFirst("$1"));
+        return path.equals(versioned);
+    }
+}
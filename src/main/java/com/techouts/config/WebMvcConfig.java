@@ -1,28 +1,61 @@
 package com.techouts.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private final AuthSessionInterceptor authSessionInterceptor;
+    private final StaticResourceCacheInterceptor staticResourceCacheInterceptor;
 
-    public WebMvcConfig(AuthSessionInterceptor authSessionInterceptor) {
+    public WebMvcConfig(AuthSessionInterceptor authSessionInterceptor,
+                        StaticResourceCacheInterceptor staticResourceCacheInterceptor) {
         this.authSessionInterceptor = authSessionInterceptor;
+        this.staticResourceCacheInterceptor = staticResourceCacheInterceptor;
     }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(authSessionInterceptor)
                 .addPathPatterns("/home", "/cart/**", "/checkout/**", "/orders", "/buy-now", "/profile", "/order-success");
+        registry.addInterceptor(staticResourceCacheInterceptor);
     }
-    
+
+    // Every /uploads URL is named by the SHA-256 of the picture it was made from, and a thumbnail the collector
+    // deletes is only ever regenerated from that same picture, so a URL never serves different bytes: immutable
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:./uploads/");
+                .addResourceLocations("file:./uploads/")
+                .setCacheControl(StaticResourceCacheInterceptor.IMMUTABLE);
+    }
+
+    // Resource handlers are built inside the MVC handler mappings with no hook for their converter
+    @Bean
+    static BeanPostProcessor sendfileResourceHandlers(
+            @Value("${static-resources.sendfile-threshold:48KB}") DataSize sendfileThreshold) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleUrlHandlerMapping mapping) {
+                    for (Object handler : mapping.getUrlMap().values()) {
+                        if (handler instanceof ResourceHttpRequestHandler resources) {
+                            resources.setResourceHttpMessageConverter(
+                                    new SendfileResourceHttpMessageConverter(sendfileThreshold.toBytes()));
+                        }
+                    }
+                }
+                return bean;
+            }
+        };
     }
 }
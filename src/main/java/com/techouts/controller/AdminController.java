@@ -1,51 +1,127 @@
 package com.techouts.controller;
 
+import com.techouts.cache.CartCountCache;
+import com.techouts.cache.CartIdCache;
+import com.techouts.cache.ProductCatalogCache;
+import com.techouts.cache.StorefrontPageCache;
+import com.techouts.dto.BulkStockRequest;
+import com.techouts.dto.DailyTotal;
+import com.techouts.dto.ProductImportResult;
+import com.techouts.dto.StockAdjustment;
+import com.techouts.dto.StockAdjustmentResult;
 import com.techouts.entity.Order;
 import com.techouts.entity.OrderStatus;
 import com.techouts.entity.Products;
 import com.techouts.entity.Gender;
 import com.techouts.entity.User;
 import com.techouts.entity.UserRole;
+import com.techouts.media.ProfilePictures;
 import com.techouts.repository.OrderRepository;
+import com.techouts.repository.OrderSpecifications;
 import com.techouts.repository.ProductRepository;
+import com.techouts.repository.ProductSpecifications;
 import com.techouts.repository.UserRepository;
+import com.techouts.search.ProductSearchIndex;
+import com.techouts.service.ExportFormat;
+import com.techouts.service.ExportService;
 import com.techouts.service.OrderService;
+import com.techouts.service.ProductImportService;
+import com.techouts.service.ProductService;
+import com.techouts.service.StockService;
 import com.techouts.service.UserService;
+import com.techouts.stats.DashboardStats;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Controller
 public class AdminController {
+    private static final int PRODUCT_PAGE_SIZE = 50;
+    private static final int ORDER_PAGE_SIZE = 50;
+    private static final DateTimeFormatter EXPORT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final UserService userService;
     private final OrderService orderService;
+    private final ProductService productService;
+    private final ProductCatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final CartCountCache cartCountCache;
+    private final CartIdCache cartIdCache;
+    private final StorefrontPageCache storefrontPageCache;
+    private final DashboardStats dashboardStats;
+    private final ExportService exportService;
+    private final ProductImportService productImportService;
+    private final StockService stockService;
+    private final ProfilePictures profilePictures;
 
     public AdminController(ProductRepository productRepository,
                            OrderRepository orderRepository,
                            UserRepository userRepository,
                            UserService userService,
-                           OrderService orderService) {
+                           OrderService orderService,
+                           ProductService productService,
+                           ProductCatalogCache catalogCache,
+                           ProductSearchIndex searchIndex,
+                           CartCountCache cartCountCache,
+                           CartIdCache cartIdCache,
+                           StorefrontPageCache storefrontPageCache,
+                           DashboardStats dashboardStats,
+                           ExportService exportService,
+                           ProductImportService productImportService,
+                           StockService stockService,
+                           ProfilePictures profilePictures) {
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.userService = userService;
         this.orderService = orderService;
+        this.productService = productService;
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.cartCountCache = cartCountCache;
+        this.cartIdCache = cartIdCache;
+        this.storefrontPageCache = storefrontPageCache;
+        this.dashboardStats = dashboardStats;
+        this.exportService = exportService;
+        this.productImportService = productImportService;
+        this.stockService = stockService;
+        this.profilePictures = profilePictures;
     }
 
     @GetMapping("/admin")
@@ -57,47 +133,86 @@ public class AdminController {
         return "redirect:/admin/products";
     }
 
+    @GetMapping("/admin/dashboard")
+    public String dashboard(HttpSession session, Model model) {
+        String redirect = guardAdmin(session);
+        if (redirect != null) {
+            return redirect;
+        }
+        DashboardStats.Snapshot stats = dashboardStats.snapshot();
+        // Bar width per day, as a percentage of the best day in the window
+        BigDecimal maxDailyRevenue = stats.days().stream()
+                .map(DailyTotal::amount)
+                .reduce(BigDecimal.ZERO, BigDecimal::max);
+        Map<LocalDate, Integer> revenueBars = new LinkedHashMap<>();
+        for (DailyTotal day : stats.days()) {
+            revenueBars.put(day.day(), maxDailyRevenue.signum() <= 0 ? 0
+                    : day.amount().max(BigDecimal.ZERO).multiply(BigDecimal.valueOf(100))
+                            .divide(maxDailyRevenue, 0, RoundingMode.DOWN).intValue());
+        }
+        model.addAttribute("stats", stats);
+        model.addAttribute("revenueBars", revenueBars);
+        return "admin/admin-dashboard";
+    }
+
     @GetMapping("/admin/products")
     public String products(@RequestParam(defaultValue = "created") String sort,
                            @RequestParam(required = false) String search,
                            @RequestParam(defaultValue = "ALL") String category,
+                           @RequestParam(required = false) Long afterId,
+                           @RequestParam(required = false) String afterCategory,
                            HttpSession session,
                            Model model) {
         String redirect = guardAdmin(session);
         if (redirect != null) {
             return redirect;
         }
-        List<Products> products;
-        if (search != null && !search.trim().isEmpty()) {
-            products = productRepository.findByNameContainingIgnoreCase(search.trim());
-        } else {
-            products = productRepository.findAll();
-        }
+        boolean categorySort = "categoryAsc".equals(sort) || "categoryDesc".equals(sort);
+        boolean descending = "categoryDesc".equals(sort);
 
-        if (category != null && !"ALL".equalsIgnoreCase(category)) {
-            products = products.stream()
-                    .filter(p -> p.getCategory() != null && p.getCategory().equalsIgnoreCase(category))
-                    .collect(Collectors.toList());
+        Specification<Products> spec = productFilter(search, category);
+        if (afterId != null) {
+            spec = spec.and(categorySort && afterCategory != null
+                    ? ProductSpecifications.categoryAfter(afterCategory, afterId, descending)
+                    : ProductSpecifications.idAfter(afterId));
         }
+        Sort order = productSort(sort);
 
-        switch (sort) {
-            case "categoryAsc" -> products.sort((a, b) -> a.getCategory().compareToIgnoreCase(b.getCategory()));
-            case "categoryDesc" -> products.sort((a, b) -> b.getCategory().compareToIgnoreCase(a.getCategory()));
-            default -> {
-            }
+        // Fetch one extra row to find out whether a next page exists without a count query
+        List<Products> products = new ArrayList<>(productRepository.findBy(spec,
+                q -> q.sortBy(order).limit(PRODUCT_PAGE_SIZE + 1).all()));
+        boolean hasNext = products.size() > PRODUCT_PAGE_SIZE;
+        if (hasNext) {
+            products = products.subList(0, PRODUCT_PAGE_SIZE);
+            Products last = products.get(products.size() - 1);
+            model.addAttribute("nextAfterId", last.getId());
+            model.addAttribute("nextAfterCategory", categorySort ? last.getCategory() : null);
         }
-        Set<String> categories = productRepository.findAll().stream()
-                .map(Products::getCategory)
-                .filter(c -> c != null && !c.isBlank())
-                .collect(Collectors.toCollection(java.util.TreeSet::new));
+
         model.addAttribute("products", products);
+        model.addAttribute("hasNext", hasNext);
+        model.addAttribute("isFirstPage", afterId == null);
         model.addAttribute("selectedSort", sort);
         model.addAttribute("search", search == null ? "" : search.trim());
-        model.addAttribute("categories", categories);
+        model.addAttribute("categories", productService.getCategories());
         model.addAttribute("selectedCategory", category == null ? "ALL" : category);
         return "admin/admin-products";
     }
 
+    @GetMapping("/admin/products/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "csv") String format,
+                                                                @RequestParam(required = false) String search,
+                                                                @RequestParam(defaultValue = "ALL") String category,
+                                                                @RequestParam(defaultValue = "created") String sort,
+                                                                HttpSession session) {
+        if (guardAdmin(session) != null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Specification<Products> spec = productFilter(search, category);
+        Sort order = productSort(sort);
+        return export("products", format, (exportFormat, out) -> exportService.exportProducts(spec, order, exportFormat, out));
+    }
+
     @GetMapping("/admin/products/new")
     public String newProduct(HttpSession session, Model model) {
         String redirect = guardAdmin(session);
@@ -155,17 +270,21 @@ public class AdminController {
             return redirect;
         }
         try {
-            validateProduct(name, category, price, stock, description, imageUrl);
+            productService.validateProduct(name, category, price, stock, description, imageUrl);
             Products product = (id == null)
                     ? new Products()
                     : productRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Product not found"));
+            String previousCategory = product.getCategory();
             product.setName(name.trim());
             product.setCategory(category.trim());
             product.setPrice(price);
             product.setStock(stock);
             product.setDescription(description.trim());
             product.setImageUrl(imageUrl.trim());
-            productRepository.save(product);
+            Products saved = productRepository.save(product);
+            catalogCache.evictProduct(saved.getId(), previousCategory, saved.getCategory());
+            storefrontPageCache.invalidateAll();
+            searchIndex.index(saved);
             ra.addFlashAttribute("success", id == null ? "Product created" : "Product updated");
         } catch (IllegalArgumentException ex) {
             ra.addFlashAttribute("error", ex.getMessage());
@@ -173,17 +292,52 @@ public class AdminController {
         return "redirect:/admin/products";
     }
 
+    @PostMapping("/admin/products/import")
+    public String importProducts(@RequestParam("file") MultipartFile file, HttpSession session, RedirectAttributes ra) {
+        String redirect = guardAdmin(session);
+        if (redirect != null) {
+            return redirect;
+        }
+        if (file == null || file.isEmpty()) {
+            ra.addFlashAttribute("error", "Choose a CSV file to import");
+            return "redirect:/admin/products";
+        }
+        try (InputStream csv = file.getInputStream()) {
+            ProductImportResult result = productImportService.importProducts(csv);
+            if (result.created() + result.updated() > 0) {
+                storefrontPageCache.invalidateAll();
+            }
+            String summary = "Import finished: " + result.created() + " created, " + result.updated() + " updated, "
+                    + result.rejected() + " rejected";
+            if (result.stockIgnored() > 0) {
+                summary += "; stock left unchanged on " + result.stockIgnored()
+                        + " updated rows without an expected_stock";
+            }
+            ra.addFlashAttribute(result.rejected() == 0 ? "success" : "error", summary);
+            ra.addFlashAttribute("importErrors", result.errors());
+        } catch (IllegalArgumentException ex) {
+            ra.addFlashAttribute("error", ex.getMessage());
+        } catch (IOException ex) {
+            ra.addFlashAttribute("error", "Could not read the uploaded file");
+        }
+        return "redirect:/admin/products";
+    }
+
     @PostMapping("/admin/products/{id}/delete")
     public String deleteProduct(@PathVariable Long id, HttpSession session, RedirectAttributes ra) {
         String redirect = guardAdmin(session);
         if (redirect != null) {
             return redirect;
         }
-        if (!productRepository.existsById(id)) {
+        Products product = productRepository.findById(id).orElse(null);
+        if (product == null) {
             ra.addFlashAttribute("error", "Product not found");
             return "redirect:/admin/products";
         }
-        productRepository.deleteById(id);
+        productRepository.delete(product);
+        catalogCache.evictProduct(id, product.getCategory());
+        storefrontPageCache.invalidateAll();
+        searchIndex.remove(id);
         ra.addFlashAttribute("success", "Product deleted");
         return "redirect:/admin/products";
     }
@@ -197,65 +351,89 @@ public class AdminController {
         if (redirect != null) {
             return redirect;
         }
-        if (stock == null || stock < 0) {
+        if (stock == null) {
             ra.addFlashAttribute("error", "Stock must be 0 or greater");
             return "redirect:/admin/products";
         }
-        Products product = productRepository.findById(id).orElse(null);
-        if (product == null) {
-            ra.addFlashAttribute("error", "Product not found");
-            return "redirect:/admin/products";
+        StockAdjustmentResult result = stockService.adjustStock(BulkStockRequest.Mode.SET,
+                List.of(new StockAdjustment(id, stock, null))).get(0);
+        StockAdjustmentResult.Status status = result.status();
+        if (status == StockAdjustmentResult.Status.UPDATED || status == StockAdjustmentResult.Status.UNCHANGED) {
+            ra.addFlashAttribute("success", "Stock updated");
+        } else {
+            ra.addFlashAttribute("error", result.message());
         }
-        product.setStock(stock);
-        productRepository.save(product);
-        ra.addFlashAttribute("success", "Stock updated");
         return "redirect:/admin/products";
     }
 
+    // Warehouse sync: {"mode": "SET" | "ADD", "items": [{"productId": 1, "quantity": 5, "expectedStock": 7}, ...]}
+    @PostMapping("/admin/products/stock")
+    public ResponseEntity<Map<String, Object>> bulkUpdateStock(@RequestBody BulkStockRequest request, HttpSession session) {
+        if (guardAdmin(session) != null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            List<StockAdjustmentResult> results = stockService.adjustStock(request.mode(), request.items());
+            Map<StockAdjustmentResult.Status, Long> counts = results.stream()
+                    .collect(Collectors.groupingBy(StockAdjustmentResult::status,
+                            () -> new EnumMap<>(StockAdjustmentResult.Status.class), Collectors.counting()));
+            return ResponseEntity.ok(Map.of("counts", counts, "results", results));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/admin/cache/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> cacheStats(HttpSession session) {
+        if (guardAdmin(session) != null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>(catalogCache.stats());
+        stats.put("cartCounts", cartCountCache.stats());
+        stats.put("cartIds", cartIdCache.stats());
+        stats.put("storefrontPages", storefrontPageCache.stats());
+        return ResponseEntity.ok(stats);
+    }
+
     @GetMapping("/admin/orders")
     public String orders(@RequestParam(required = false) String status,
                          @RequestParam(required = false) String userQuery,
                          @RequestParam(defaultValue = "createdAtDesc") String sort,
+                         @RequestParam(required = false) Long afterId,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedAt,
+                         @RequestParam(required = false) OrderStatus afterStatus,
                          HttpSession session,
                          Model model) {
         String redirect = guardAdmin(session);
         if (redirect != null) {
             return redirect;
         }
-        List<Order> orders = orderRepository.findAllByOrderByCreatedAtDesc();
-
-        if (status != null && !status.isBlank() && !"ALL".equalsIgnoreCase(status)) {
-            orders = orders.stream()
-                    .filter(o -> o.getStatus() != null && o.getStatus().name().equalsIgnoreCase(status))
-                    .collect(Collectors.toList());
-        }
+        boolean statusSort = "statusAsc".equals(sort) || "statusDesc".equals(sort);
+        boolean ascending = "createdAtAsc".equals(sort) || "statusAsc".equals(sort);
 
-        if (userQuery != null && !userQuery.isBlank()) {
-            String q = userQuery.trim().toLowerCase(Locale.ROOT);
-            orders = orders.stream()
-                    .filter(o -> {
-                        User u = o.getUser();
-                        if (u == null) {
-                            return false;
-                        }
-                        boolean idMatch = String.valueOf(u.getId()).equals(q);
-                        boolean usernameMatch = u.getUsername() != null && u.getUsername().toLowerCase(Locale.ROOT).contains(q);
-                        boolean emailMatch = u.getEmail() != null && u.getEmail().toLowerCase(Locale.ROOT).contains(q);
-                        boolean phoneMatch = u.getPhone() != null && u.getPhone().toLowerCase(Locale.ROOT).contains(q);
-                        return idMatch || usernameMatch || emailMatch || phoneMatch;
-                    })
-                    .collect(Collectors.toList());
+        Specification<Order> spec = OrderSpecifications.fetchUser().and(orderFilter(status, userQuery));
+        if (afterId != null && afterCreatedAt != null) {
+            spec = spec.and(statusSort && afterStatus != null
+                    ? OrderSpecifications.statusAfter(afterStatus, afterCreatedAt, afterId, !ascending)
+                    : OrderSpecifications.createdAfter(afterCreatedAt, afterId, !ascending));
         }
+        Sort order = orderSort(sort);
 
-        switch (sort) {
-            case "createdAtAsc" -> orders.sort((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()));
-            case "statusAsc" -> orders.sort((a, b) -> safeStatus(a).compareTo(safeStatus(b)));
-            case "statusDesc" -> orders.sort((a, b) -> safeStatus(b).compareTo(safeStatus(a)));
-            default -> {
-            }
+        // Fetch one extra row to find out whether a next page exists without a count query
+        List<Order> orders = new ArrayList<>(orderRepository.findBy(spec,
+                q -> q.sortBy(order).limit(ORDER_PAGE_SIZE + 1).all()));
+        boolean hasNext = orders.size() > ORDER_PAGE_SIZE;
+        if (hasNext) {
+            orders = orders.subList(0, ORDER_PAGE_SIZE);
+            Order last = orders.get(orders.size() - 1);
+            model.addAttribute("nextAfterId", last.getId());
+            model.addAttribute("nextAfterCreatedAt", last.getCreatedAt());
+            model.addAttribute("nextAfterStatus", statusSort ? last.getStatus() : null);
         }
 
         model.addAttribute("orders", orders);
+        model.addAttribute("hasNext", hasNext);
+        model.addAttribute("isFirstPage", afterId == null);
         model.addAttribute("statuses", OrderStatus.values());
         model.addAttribute("selectedStatus", status == null || status.isBlank() ? "ALL" : status);
         model.addAttribute("userQuery", userQuery == null ? "" : userQuery.trim());
@@ -263,6 +441,21 @@ public class AdminController {
         return "admin/admin-orders";
     }
 
+    // Same filters and ordering as /admin/orders, without paging; one CSV line per order line
+    @GetMapping("/admin/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(defaultValue = "csv") String format,
+                                                              @RequestParam(required = false) String status,
+                                                              @RequestParam(required = false) String userQuery,
+                                                              @RequestParam(defaultValue = "createdAtDesc") String sort,
+                                                              HttpSession session) {
+        if (guardAdmin(session) != null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Specification<Order> spec = orderFilter(status, userQuery);
+        Sort order = orderSort(sort);
+        return export("orders", format, (exportFormat, out) -> exportService.exportOrders(spec, order, exportFormat, out));
+    }
+
     @GetMapping("/admin/users")
     public String users(@RequestParam(required = false) String search, HttpSession session, Model model) {
         String redirect = guardAdmin(session);
@@ -348,6 +541,7 @@ public class AdminController {
             user.setEmail(normalizedEmail);
             user.setPhone(normalizedPhone);
             user.setAddress(address == null || address.trim().isEmpty() ? null : address.trim());
+            String previousPicture = user.getProfilePicture();
             user.setProfilePicture(profilePicture == null || profilePicture.trim().isEmpty() ? null : profilePicture.trim());
 
             if (gender == null || gender.isBlank()) {
@@ -362,7 +556,16 @@ public class AdminController {
                 user.setDateOfBirth(LocalDate.parse(dateOfBirth));
             }
 
+            // Take the new picture's reference before saving and drop the old one after, so a failure in between
+            // leaves a blob referenced once too often rather than collected while in use
+            boolean pictureChanged = !Objects.equals(previousPicture, user.getProfilePicture());
+            if (pictureChanged) {
+                profilePictures.retain(user.getProfilePicture());
+            }
             userRepository.save(user);
+            if (pictureChanged) {
+                profilePictures.release(previousPicture);
+            }
             ra.addFlashAttribute("success", "User updated successfully");
         } catch (IllegalArgumentException ex) {
             ra.addFlashAttribute("error", ex.getMessage());
@@ -393,7 +596,11 @@ public class AdminController {
             ra.addFlashAttribute("error", "Cannot delete user with order history");
             return "redirect:/admin/users";
         }
-        userRepository.delete(user);
+        userService.deleteUser(user);
+        profilePictures.release(user.getProfilePicture());
+        dashboardStats.userRemoved(user.getRole());
+        cartIdCache.invalidate(id);
+        cartCountCache.invalidate(id);
         ra.addFlashAttribute("success", "User deleted successfully");
         return "redirect:/admin/users";
     }
@@ -426,8 +633,10 @@ public class AdminController {
                 throw new IllegalArgumentException("At least one admin is required");
             }
 
+            UserRole previousRole = target.getRole();
             target.setRole(role);
             userRepository.save(target);
+            dashboardStats.userRoleChanged(previousRole, role);
 
             if (currentUserId != null && currentUserId.equals(id)) {
                 session.setAttribute("IS_ADMIN", role == UserRole.ROLE_ADMIN);
@@ -451,50 +660,82 @@ public class AdminController {
             return redirect;
         }
         try {
-            Order order = orderRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Order not found"));
-            OrderStatus current = order.getStatus() == null ? OrderStatus.PLACED : order.getStatus();
-
-            if (current == OrderStatus.CANCELLED || current == OrderStatus.DELIVERED) {
-                throw new IllegalArgumentException("Cannot modify delivered/cancelled order");
-            }
-
-            if (status == OrderStatus.CANCELLED) {
-                orderService.cancelOrder(order.getUser().getId(), id);
-                ra.addFlashAttribute("success", "Order cancelled and stock restored");
-                return "redirect:/admin/orders";
-            }
-
-            if (!isForwardTransition(current, status)) {
-                throw new IllegalArgumentException("Invalid status transition");
-            }
-
-            order.setStatus(status);
-            orderRepository.save(order);
-            ra.addFlashAttribute("success", "Order status updated to " + status);
+            orderService.updateStatus(id, status);
+            ra.addFlashAttribute("success", status == OrderStatus.CANCELLED
+                    ? "Order cancelled and stock restored"
+                    : "Order status updated to " + status);
         } catch (IllegalArgumentException ex) {
             ra.addFlashAttribute("error", ex.getMessage());
         }
         return "redirect:/admin/orders";
     }
 
-    private boolean isForwardTransition(OrderStatus current, OrderStatus next) {
-        if (next == OrderStatus.PLACED) {
-            return current == OrderStatus.PLACED;
+    private Specification<Products> productFilter(String search, String category) {
+        Specification<Products> spec = Specification.where(null);
+        if (search != null && !search.trim().isEmpty()) {
+            spec = spec.and(ProductSpecifications.nameContains(search));
         }
-        if (next == OrderStatus.PACKED) {
-            return current == OrderStatus.PLACED || current == OrderStatus.PACKED;
+        if (category != null && !"ALL".equalsIgnoreCase(category)) {
+            spec = spec.and(ProductSpecifications.inCategory(category));
         }
-        if (next == OrderStatus.SHIPPED) {
-            return current == OrderStatus.PACKED || current == OrderStatus.SHIPPED;
+        return spec;
+    }
+
+    private Sort productSort(String sort) {
+        if ("categoryAsc".equals(sort) || "categoryDesc".equals(sort)) {
+            Sort.Direction direction = "categoryDesc".equals(sort) ? Sort.Direction.DESC : Sort.Direction.ASC;
+            return Sort.by(new Sort.Order(direction, "category").ignoreCase(), Sort.Order.asc("id"));
         }
-        if (next == OrderStatus.DELIVERED) {
-            return current == OrderStatus.SHIPPED || current == OrderStatus.DELIVERED;
+        return Sort.by("id");
+    }
+
+    private Specification<Order> orderFilter(String status, String userQuery) {
+        Specification<Order> spec = Specification.where(null);
+        if (status != null && !status.isBlank() && !"ALL".equalsIgnoreCase(status)) {
+            OrderStatus statusFilter = parseStatus(status);
+            spec = spec.and(statusFilter == null
+                    ? (root, query, cb) -> cb.disjunction()
+                    : OrderSpecifications.hasStatus(statusFilter));
         }
-        return false;
+        if (userQuery != null && !userQuery.isBlank()) {
+            spec = spec.and(OrderSpecifications.userMatches(userQuery));
+        }
+        return spec;
+    }
+
+    private Sort orderSort(String sort) {
+        boolean ascending = "createdAtAsc".equals(sort) || "statusAsc".equals(sort);
+        if ("statusAsc".equals(sort) || "statusDesc".equals(sort)) {
+            return Sort.by(ascending ? Sort.Direction.ASC : Sort.Direction.DESC, "status")
+                    .and(Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        }
+        return Sort.by(ascending ? Sort.Direction.ASC : Sort.Direction.DESC, "createdAt", "id");
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(String name, String format, StreamingExport export) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.parse(format);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+        String filename = name + "-" + LocalDateTime.now().format(EXPORT_TIMESTAMP) + "." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .body(out -> export.write(exportFormat, out));
     }
 
-    private String safeStatus(Order order) {
-        return order.getStatus() == null ? OrderStatus.PLACED.name() : order.getStatus().name();
+    private interface StreamingExport {
+        void write(ExportFormat format, OutputStream out) throws IOException;
+    }
+
+    private OrderStatus parseStatus(String status) {
+        try {
+            return OrderStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
     }
 
     private String normalizeName(String name) {
@@ -540,27 +781,6 @@ public class AdminController {
         return normalized;
     }
 
-    private void validateProduct(String name, String category, BigDecimal price, Integer stock, String description, String imageUrl) {
-        if (name == null || name.trim().length() < 2) {
-            throw new IllegalArgumentException("Product name must be at least 2 characters");
-        }
-        if (category == null || category.trim().isEmpty()) {
-            throw new IllegalArgumentException("Category is required");
-        }
-        if (price == null || price.signum() < 0) {
-            throw new IllegalArgumentException("Price must be 0 or greater");
-        }
-        if (stock == null || stock < 0) {
-            throw new IllegalArgumentException("Stock must be 0 or greater");
-        }
-        if (description == null || description.trim().length() < 5) {
-            throw new IllegalArgumentException("Description must be at least 5 characters");
-        }
-        if (imageUrl == null || imageUrl.trim().isEmpty()) {
-            throw new IllegalArgumentException("Image URL is required");
-        }
-    }
-
     private String guardAdmin(HttpSession session) {
         Object userId = session.getAttribute("USER_ID");
         if (!(userId instanceof Long id)) {
@@ -1,16 +1,27 @@
 package com.techouts.controller;
 
+import com.techouts.checkout.CheckoutQueue;
+import com.techouts.checkout.CheckoutStatus;
+import com.techouts.checkout.CheckoutTicket;
+import com.techouts.dto.OrderSummary;
+import com.techouts.dto.ProductDetails;
 import com.techouts.entity.Order;
 import com.techouts.entity.OrderItems;
 import com.techouts.entity.CartItem;
-import com.techouts.entity.Products;
 import com.techouts.entity.User;
+import com.techouts.metrics.CheckoutMetrics;
 import com.techouts.service.CartItemsService;
+import com.techouts.service.CheckoutRejectedException;
 import com.techouts.service.OrderService;
 import com.techouts.service.ProductService;
 import com.techouts.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -18,30 +29,36 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 
 @Controller
 public class OrderController {
-    private static final Set<String> PAYMENT_MODES = Set.of(
-            "Upi",
-            "Debit Card",
-            "Credit Card",
-            "Netbanking",
-            "Cash on Delivery"
-    );
+    private static final int CHECKOUT_RETRY_AFTER_SECONDS = 5;
+    private static final int ORDER_PAGE_SIZE = 10;
 
     private final OrderService orderService;
     private final ProductService productService;
     private final CartItemsService cartItemsService;
     private final UserService userService;
+    private final CheckoutQueue checkoutQueue;
+    private final CheckoutMetrics checkoutMetrics;
 
-    public OrderController(OrderService orderService, ProductService productService, CartItemsService cartItemsService, UserService userService) {
+    public OrderController(OrderService orderService, ProductService productService, CartItemsService cartItemsService,
+                           UserService userService, CheckoutQueue checkoutQueue, CheckoutMetrics checkoutMetrics) {
         this.orderService = orderService;
         this.productService = productService;
         this.cartItemsService = cartItemsService;
         this.userService = userService;
+        this.checkoutQueue = checkoutQueue;
+        this.checkoutMetrics = checkoutMetrics;
     }
 
     @GetMapping("/checkout")
@@ -58,7 +75,8 @@ public class OrderController {
         int directQuantity = (quantity == null || quantity < 1) ? 1 : quantity;
         model.addAttribute("productId", productId);
         model.addAttribute("quantity", directQuantity);
-        model.addAttribute("paymentModes", PAYMENT_MODES);
+        model.addAttribute("paymentModes", orderService.getPaymentModes());
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         model.addAttribute("userAddress", user.getAddress());
         model.addAttribute("cartCount", cartItemsService.getCartItemCount(userId));
         populateCheckoutSummary(userId, productId, directQuantity, model);
@@ -70,40 +88,104 @@ public class OrderController {
                              @RequestParam(required = false) Integer quantity,
                              @RequestParam String shippingAddress,
                              @RequestParam String paymentMode,
+                             @RequestParam(required = false) String idempotencyKey,
                              HttpSession session,
+                             HttpServletResponse response,
                              Model model) {
         Long userId = loggedInUserId(session);
         if (userId == null) {
             return "redirect:/login";
         }
+        // Forms without a usable key still check out, they just are not deduplicated
+        String key = CheckoutQueue.isValidKey(idempotencyKey) ? idempotencyKey : UUID.randomUUID().toString();
         try {
             int directQuantity = (quantity == null || quantity < 1) ? 1 : quantity;
-            Order order = orderService.placeOrder(userId, productId, directQuantity, shippingAddress, paymentMode);
-            return "redirect:/order-success?orderId=" + order.getId();
+            orderService.validateCheckout(shippingAddress, paymentMode);
+            Set<Long> productIds = checkoutProductIds(userId, productId);
+            if (productIds.isEmpty()) {
+                throw new CheckoutRejectedException(CheckoutRejectedException.Reason.EMPTY_CART, "Cart is empty");
+            }
+            Optional<CheckoutTicket> ticket = checkoutQueue.submit(userId, key, productId, directQuantity,
+                    shippingAddress, paymentMode, productIds);
+            if (ticket.isEmpty()) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(CHECKOUT_RETRY_AFTER_SECONDS));
+                return checkoutWithError("We are receiving a lot of orders right now. Please try again in a few seconds.",
+                        userId, productId, quantity, shippingAddress, paymentMode, key, model);
+            }
+            return "redirect:/checkout/pending?key=" + key;
         } catch (IllegalArgumentException ex) {
-            model.addAttribute("error", ex.getMessage());
-            model.addAttribute("productId", productId);
-            model.addAttribute("quantity", quantity);
-            model.addAttribute("shippingAddress", shippingAddress);
-            model.addAttribute("selectedPaymentMode", paymentMode);
-            model.addAttribute("paymentModes", PAYMENT_MODES);
-            model.addAttribute("cartCount", cartItemsService.getCartItemCount(userId));
-            // Add user address for display
-            User user = userService.findById(userId);
-            model.addAttribute("userAddress", user.getAddress());
-            populateCheckoutSummary(userId, productId, (quantity == null || quantity < 1) ? 1 : quantity, model);
-            return "user/checkout";
+            checkoutMetrics.rejected(ex);
+            return checkoutWithError(ex.getMessage(), userId, productId, quantity, shippingAddress, paymentMode, key, model);
         }
     }
 
+    @GetMapping("/checkout/pending")
+    public String checkoutPending(@RequestParam String key, HttpSession session, Model model) {
+        Long userId = loggedInUserId(session);
+        if (userId == null) {
+            return "redirect:/login";
+        }
+        Optional<CheckoutTicket> ticket = checkoutQueue.find(userId, key);
+        if (ticket.isEmpty()) {
+            // Ticket expired or the server restarted; the order itself is the durable record
+            return orderService.findByIdempotencyKey(userId, key)
+                    .map(order -> "redirect:/order-success?orderId=" + order.getId())
+                    .orElse("redirect:/orders");
+        }
+        if (ticket.get().getStatus() == CheckoutStatus.PLACED) {
+            return "redirect:/order-success?orderId=" + ticket.get().getOrderId();
+        }
+        model.addAttribute("ticket", ticket.get());
+        model.addAttribute("cartCount", cartItemsService.getCartItemCount(userId));
+        return "user/checkout-pending";
+    }
+
+    @GetMapping("/checkout/status")
+    public ResponseEntity<Map<String, Object>> checkoutStatus(@RequestParam String key, HttpSession session) {
+        Long userId = loggedInUserId(session);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        Optional<CheckoutTicket> ticket = checkoutQueue.find(userId, key);
+        if (ticket.isPresent()) {
+            body.put("status", ticket.get().getStatus());
+            body.put("orderId", ticket.get().getOrderId());
+            body.put("error", ticket.get().getError());
+            return ResponseEntity.ok(body);
+        }
+        Optional<Order> order = orderService.findByIdempotencyKey(userId, key);
+        if (order.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        body.put("status", CheckoutStatus.PLACED);
+        body.put("orderId", order.get().getId());
+        body.put("error", null);
+        return ResponseEntity.ok(body);
+    }
+
     @GetMapping("/orders")
-    public String orders(HttpSession session, Model model) {
+    public String orders(@RequestParam(required = false) Long afterId,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedAt,
+                         HttpSession session,
+                         Model model) {
         Long userId = loggedInUserId(session);
         if (userId == null) {
             return "redirect:/login";
         }
-        List<Order> orders = orderService.getOrderHistory(userId);
+        // Fetch one extra row to find out whether a next page exists without a count query
+        List<OrderSummary> orders = orderService.getOrderHistory(userId, afterCreatedAt, afterId, ORDER_PAGE_SIZE + 1);
+        boolean hasNext = orders.size() > ORDER_PAGE_SIZE;
+        if (hasNext) {
+            orders = orders.subList(0, ORDER_PAGE_SIZE);
+            OrderSummary last = orders.get(orders.size() - 1);
+            model.addAttribute("nextAfterId", last.id());
+            model.addAttribute("nextAfterCreatedAt", last.createdAt());
+        }
         model.addAttribute("orders", orders);
+        model.addAttribute("hasNext", hasNext);
+        model.addAttribute("isFirstPage", afterId == null || afterCreatedAt == null);
         
         // Add cart count
         int cartCount = cartItemsService.getCartItemCount(userId);
@@ -158,15 +240,44 @@ public class OrderController {
         return userId instanceof Long ? (Long) userId : null;
     }
 
+    private String checkoutWithError(String error, Long userId, Long productId, Integer quantity,
+                                     String shippingAddress, String paymentMode, String idempotencyKey, Model model) {
+        model.addAttribute("error", error);
+        model.addAttribute("productId", productId);
+        model.addAttribute("quantity", quantity);
+        model.addAttribute("shippingAddress", shippingAddress);
+        model.addAttribute("selectedPaymentMode", paymentMode);
+        model.addAttribute("paymentModes", orderService.getPaymentModes());
+        model.addAttribute("idempotencyKey", idempotencyKey);
+        model.addAttribute("cartCount", cartItemsService.getCartItemCount(userId));
+        // Add user address for display
+        User user = userService.findById(userId);
+        model.addAttribute("userAddress", user.getAddress());
+        populateCheckoutSummary(userId, productId, (quantity == null || quantity < 1) ? 1 : quantity, model);
+        return "user/checkout";
+    }
+
+    // Products the submission will reserve, used to group checkouts that contend for the same stock rows
+    private Set<Long> checkoutProductIds(Long userId, Long productId) {
+        if (productId != null) {
+            return Set.of(productId);
+        }
+        Set<Long> productIds = new HashSet<>();
+        for (CartItem item : cartItemsService.getCartItems(userId)) {
+            productIds.add(item.getProduct().getId());
+        }
+        return productIds;
+    }
+
     private void populateCheckoutSummary(Long userId, Long productId, Integer directQuantity, Model model) {
         List<CheckoutItemView> items = new ArrayList<>();
         BigDecimal total = BigDecimal.ZERO;
 
         if (productId != null) {
-            Products product = productService.getById(productId);
+            ProductDetails product = productService.getById(productId);
             int quantity = (directQuantity == null || directQuantity < 1) ? 1 : directQuantity;
-            BigDecimal subtotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
-            items.add(new CheckoutItemView(product.getImageUrl(), product.getName(), product.getPrice(), quantity, subtotal));
+            BigDecimal subtotal = product.price().multiply(BigDecimal.valueOf(quantity));
+            items.add(new CheckoutItemView(product.imageUrl(), product.name(), product.price(), quantity, subtotal));
             total = total.add(subtotal);
         } else {
             List<CartItem> cartItems = cartItemsService.getCartItems(userId);
@@ -1,41 +1,88 @@
 package com.techouts.controller;
 
+import com.techouts.cache.StorefrontPageCache;
+import com.techouts.cache.StorefrontPageCache.RenderedPage;
+import com.techouts.dto.ProductDetails;
+import com.techouts.dto.ProductSummary;
 import com.techouts.entity.Products;
 import com.techouts.service.CartItemsService;
 import com.techouts.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @Controller
 public class ProductController {
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    private static final MediaType HTML_UTF8 = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
 
     private final ProductService productService;
     private final CartItemsService cartItemsService;
+    private final StorefrontPageCache pageCache;
+    private final ITemplateEngine templateEngine;
 
-    public ProductController(ProductService productService, CartItemsService cartItemsService) {
+    public ProductController(ProductService productService,
+                             CartItemsService cartItemsService,
+                             StorefrontPageCache pageCache,
+                             ITemplateEngine templateEngine) {
         this.productService = productService;
         this.cartItemsService = cartItemsService;
+        this.pageCache = pageCache;
+        this.templateEngine = templateEngine;
     }
 
+    // Only anonymous visitors share cached pages, and looking that up never creates a session. The ETag lets a
+    // browser revalidate with If-None-Match and get a 304 without the body.
     @GetMapping({"/", "/index"})
-    public String index(@RequestParam(defaultValue = "All") String category, 
-                        @RequestParam(required = false) String search, Model model) {
-        List<Products> products;
+    public ResponseEntity<byte[]> index(@RequestParam(defaultValue = "All") String category,
+                                        @RequestParam(required = false) String search,
+                                        HttpServletRequest request,
+                                        HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        boolean anonymous = session == null || session.getAttribute("USER_ID") == null;
+        Supplier<RenderedPage> renderer = () -> renderIndex(category, search, request, response);
+        RenderedPage page = anonymous ? pageCache.get(category, search, renderer) : renderer.get();
+        return ResponseEntity.ok()
+                .contentType(HTML_UTF8)
+                .cacheControl(CacheControl.noCache())
+                .eTag(page.etag())
+                .body(page.body());
+    }
+
+    private RenderedPage renderIndex(String category, String search, HttpServletRequest request, HttpServletResponse response) {
+        List<ProductSummary> products;
+        long searchTotal = 0;
         if (search != null && !search.trim().isEmpty()) {
-            products = productService.searchProductsByName(search.trim());
+            Page<ProductSummary> results = productService.searchProductsByName(search.trim());
+            products = results.getContent();
+            searchTotal = results.getTotalElements();
         } else {
             products = productService.getProducts(category);
         }
-        model.addAttribute("products", products);
-        model.addAttribute("selectedCategory", category);
-        model.addAttribute("search", search);
-        return "user/index";
+        WebContext context = new WebContext(JakartaServletWebApplication.buildApplication(request.getServletContext())
+                .buildExchange(request, response), request.getLocale());
+        context.setVariable("products", products);
+        context.setVariable("selectedCategory", category);
+        context.setVariable("search", search);
+        context.setVariable("searchTotal", searchTotal);
+        return RenderedPage.of(templateEngine.process("user/index", context));
     }
 
     @GetMapping("/home")
@@ -44,15 +91,19 @@ public class ProductController {
         if (session.getAttribute("USER_ID") == null) {
             return "redirect:/login";
         }
-        List<Products> products;
+        List<ProductSummary> products;
+        long searchTotal = 0;
         if (search != null && !search.trim().isEmpty()) {
-            products = productService.searchProductsByName(search.trim());
+            Page<ProductSummary> results = productService.searchProductsByName(search.trim());
+            products = results.getContent();
+            searchTotal = results.getTotalElements();
         } else {
             products = productService.getProducts(category);
         }
         model.addAttribute("products", products);
         model.addAttribute("selectedCategory", category);
         model.addAttribute("search", search);
+        model.addAttribute("searchTotal", searchTotal);
         model.addAttribute("userName", session.getAttribute("USER_NAME"));
         
         // Add cart count
@@ -65,9 +116,31 @@ public class ProductController {
         return "user/home";
     }
 
+    @GetMapping("/products/search")
+    public ResponseEntity<Map<String, Object>> search(@RequestParam String q,
+                                                      @RequestParam(defaultValue = "0") int page,
+                                                      @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid page request"));
+        }
+        Page<Products> results;
+        try {
+            results = productService.searchProducts(q, page, size);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+        return ResponseEntity.ok(Map.of(
+                "items", results.getContent(),
+                "page", results.getNumber(),
+                "size", results.getSize(),
+                "totalItems", results.getTotalElements(),
+                "totalPages", results.getTotalPages()
+        ));
+    }
+
     @GetMapping("/product/{id}")
     public String productDetails(@PathVariable Long id, HttpSession session, Model model) {
-        Products product = productService.getById(id);
+        ProductDetails product = productService.getById(id);
         model.addAttribute("product", product);
         model.addAttribute("isLoggedIn", session.getAttribute("USER_ID") instanceof Long);
         model.addAttribute("userName", session.getAttribute("USER_NAME"));
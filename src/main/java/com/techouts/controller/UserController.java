@@ -3,8 +3,13 @@ package com.techouts.controller;
 import com.techouts.entity.User;
 import com.techouts.entity.UserRole;
 import com.techouts.service.CartItemsService;
+import com.techouts.service.LoginRejectedException;
 import com.techouts.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Optional;
 
 @Controller
 public class UserController {
@@ -55,9 +61,21 @@ public class UserController {
     @PostMapping("/login")
     public String login(@RequestParam String identifier,
                         @RequestParam String password,
+                        HttpServletRequest request,
+                        HttpServletResponse response,
                         HttpSession session,
                         Model model) {
-        return userService.login(identifier, password)
+        Optional<User> loggedIn;
+        try {
+            loggedIn = userService.login(identifier, password, request.getRemoteAddr());
+        } catch (LoginRejectedException ex) {
+            response.setStatus(ex.getReason() == LoginRejectedException.Reason.BUSY
+                    ? HttpStatus.SERVICE_UNAVAILABLE.value() : HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())));
+            model.addAttribute("error", ex.getMessage());
+            return "user/login";
+        }
+        return loggedIn
                 .map(user -> {
                     session.setAttribute("USER_ID", user.getId());
                     session.setAttribute("USER_NAME", user.getName());
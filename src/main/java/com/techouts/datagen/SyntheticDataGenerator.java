@@ -0,0 +1,269 @@
+package com.techouts.datagen;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// CLI mode (profile "datagen"): bulk-loads a reproducible synthetic catalog, users, carts and order history with
+// JDBC batches, then exits. Same seed and sizes give the same data. Run it with the web app stopped.
+@Component
+@Profile("datagen")
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class SyntheticDataGenerator implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    // Must match the allocationSize of the order and order item @SequenceGenerator mappings
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String[] CATEGORIES = {
+            "Laptop", "Mobile", "Buds", "Tablet", "Watch", "Camera", "Speaker", "Monitor",
+            "Keyboard", "Headphones", "Television", "Printer", "Router", "Storage", "Gaming", "Appliance"
+    };
+    private static final String[] BRANDS = {
+            "Lenovo", "Dell", "HP", "Asus", "Acer", "Apple", "Samsung", "OnePlus", "Xiaomi", "Sony",
+            "Boat", "JBL", "LG", "Philips", "Canon", "Nikon", "Logitech", "Realme", "Oppo", "Vivo"
+    };
+    private static final String[] SERIES = {
+            "Pro", "Air", "Max", "Lite", "Plus", "Ultra", "Neo", "Prime", "Edge", "Nova", "Zen", "Core"
+    };
+    private static final String[] FEATURES = {
+            "long battery life", "fast charging", "a bright display", "solid build quality", "low latency",
+            "smooth multitasking", "crisp audio", "a compact design", "generous storage", "quiet operation",
+            "wide compatibility", "an ergonomic layout", "reliable connectivity", "energy efficiency"
+    };
+    private static final String[] CITIES = {
+            "Hyderabad", "Bengaluru", "Chennai", "Mumbai", "Pune", "Delhi", "Kolkata", "Ahmedabad", "Jaipur", "Kochi"
+    };
+    private static final String[] PAYMENT_MODES = {"Upi", "Debit Card", "Credit Card", "Netbanking", "Cash on Delivery"};
+    // Cumulative weights: most history is delivered, a tail is still in flight or cancelled
+    private static final String[] STATUSES = {"DELIVERED", "SHIPPED", "PACKED", "PLACED", "CANCELLED"};
+    private static final int[] STATUS_WEIGHTS = {60, 75, 85, 95, 100};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${datagen.products:100000}")
+    private int productCount;
+
+    @Value("${datagen.users:10000}")
+    private int userCount;
+
+    @Value("${datagen.orders:200000}")
+    private int orderCount;
+
+    @Value("${datagen.cart-fill:0.3}")
+    private double cartFill;
+
+    @Value("${datagen.order-days:365}")
+    private int orderDays;
+
+    @Value("${datagen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${datagen.seed:42}")
+    private long seed;
+
+    @Value("${datagen.username-prefix:loaduser}")
+    private String usernamePrefix;
+
+    @Value("${datagen.password:password123}")
+    private String password;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "select count(*) from users where username = ?", Integer.class, usernamePrefix + 1);
+        if (existing != null && existing > 0) {
+            log.warn("Skipping data generation: users with prefix '{}' already exist", usernamePrefix);
+            return;
+        }
+        Random random = new Random(seed);
+        long started = System.nanoTime();
+
+        Catalog catalog = generateProducts(random);
+        long[] userIds = generateUsers(random);
+        long[] cartIds = generateCarts(random, userIds, catalog);
+        generateOrders(random, userIds, catalog);
+
+        log.info("Generated {} products, {} users, {} carts and {} orders in {} s",
+                productCount, userIds.length, cartIds.length, orderCount, (System.nanoTime() - started) / 1_000_000_000L);
+    }
+
+    private Catalog generateProducts(Random random) {
+        long baseline = maxId("products");
+        List<Object[]> rows = new ArrayList<>(batchSize);
+        for (int i = 1; i <= productCount; i++) {
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String name = brand + " " + category + " " + SERIES[random.nextInt(SERIES.length)] + " " + (100 + random.nextInt(900));
+            // Log-normal-ish prices between roughly Rs. 500 and Rs. 200000
+            BigDecimal price = BigDecimal.valueOf(Math.round(Math.exp(6.2 + random.nextDouble() * 6.0)) * 100 + 99, 2);
+            int stock = random.nextInt(20) == 0 ? 0 : random.nextInt(500);
+            String description = "The " + name + " from " + brand + " offers " + FEATURES[random.nextInt(FEATURES.length)]
+                    + " and " + FEATURES[random.nextInt(FEATURES.length)] + ", built for everyday " + category.toLowerCase() + " use.";
+            rows.add(new Object[]{name, category, price, stock, description, "/placeholder-product.svg"});
+            if (rows.size() == batchSize || i == productCount) {
+                jdbcTemplate.batchUpdate("insert into products (name, category, price, stock, description, image_url) "
+                        + "values (?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+                progress("products", i, productCount);
+            }
+        }
+        List<long[]> loaded = new ArrayList<>();
+        jdbcTemplate.query("select id, price from products where id > ? order by id", rs -> {
+            loaded.add(new long[]{rs.getLong(1), rs.getBigDecimal(2).movePointRight(2).longValueExact()});
+        }, baseline);
+        Catalog catalog = new Catalog(loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            catalog.ids[i] = loaded.get(i)[0];
+            catalog.pricesInPaise[i] = loaded.get(i)[1];
+        }
+        return catalog;
+    }
+
+    private long[] generateUsers(Random random) {
+        long baseline = maxId("users");
+        String passwordHash = passwordEncoder.encode(password);
+        List<Object[]> rows = new ArrayList<>(batchSize);
+        for (int i = 1; i <= userCount; i++) {
+            String username = usernamePrefix + i;
+            String address = (1 + random.nextInt(999)) + " Market Road, " + CITIES[random.nextInt(CITIES.length)];
+            rows.add(new Object[]{"Load User " + i, username, username + "@example.test", passwordHash, "ROLE_USER", address});
+            if (rows.size() == batchSize || i == userCount) {
+                jdbcTemplate.batchUpdate("insert into users (name, username, email, password, role, address) "
+                        + "values (?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+                progress("users", i, userCount);
+            }
+        }
+        return jdbcTemplate.queryForList("select id from users where id > ? order by id", Long.class, baseline)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Every user gets a cart; a cart-fill share of them hold a few lines
+    private long[] generateCarts(Random random, long[] userIds, Catalog catalog) {
+        long baseline = maxId("cart");
+        List<Object[]> rows = new ArrayList<>(batchSize);
+        for (int i = 0; i < userIds.length; i++) {
+            rows.add(new Object[]{userIds[i]});
+            if (rows.size() == batchSize || i == userIds.length - 1) {
+                jdbcTemplate.batchUpdate("insert into cart (user_id) values (?)", rows);
+                rows.clear();
+            }
+        }
+        long[] cartIds = jdbcTemplate.queryForList("select id from cart where id > ? order by id", Long.class, baseline)
+                .stream().mapToLong(Long::longValue).toArray();
+
+        for (int i = 0; i < cartIds.length; i++) {
+            if (random.nextDouble() >= cartFill) {
+                continue;
+            }
+            int lines = 1 + random.nextInt(5);
+            int first = random.nextInt(catalog.ids.length);
+            for (int line = 0; line < lines; line++) {
+                // Consecutive catalog slots keep (cart, product) unique within the cart
+                long productId = catalog.ids[(first + line) % catalog.ids.length];
+                rows.add(new Object[]{cartIds[i], productId, 1 + random.nextInt(3)});
+            }
+            if (rows.size() >= batchSize) {
+                jdbcTemplate.batchUpdate("insert into cart_item (cart_id, product_id, quantity) values (?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into cart_item (cart_id, product_id, quantity) values (?, ?, ?)", rows);
+        }
+        progress("carts", cartIds.length, cartIds.length);
+        return cartIds;
+    }
+
+    // Order ids are assigned here and the sequences restarted past them afterwards
+    private void generateOrders(Random random, long[] userIds, Catalog catalog) {
+        long nextOrderId = maxId("orders") + 1;
+        long nextItemId = maxId("order_items") + 1;
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> orders = new ArrayList<>(batchSize);
+        List<Object[]> items = new ArrayList<>(batchSize * 3);
+        for (int i = 1; i <= orderCount; i++) {
+            long orderId = nextOrderId++;
+            // Skewed towards low indexes so a minority of users carries most of the history
+            long userId = userIds[(int) (Math.pow(random.nextDouble(), 2.5) * userIds.length)];
+            int lines = 1 + random.nextInt(6);
+            long totalPaise = 0;
+            for (int line = 0; line < lines; line++) {
+                int product = (int) (Math.pow(random.nextDouble(), 1.8) * catalog.ids.length);
+                int quantity = 1 + random.nextInt(3);
+                long price = catalog.pricesInPaise[product];
+                totalPaise += price * quantity;
+                items.add(new Object[]{nextItemId++, orderId, catalog.ids[product], quantity, BigDecimal.valueOf(price, 2)});
+            }
+            LocalDateTime createdAt = now.minusSeconds((long) (random.nextDouble() * orderDays * 86_400L));
+            orders.add(new Object[]{orderId, userId, Timestamp.valueOf(createdAt), BigDecimal.valueOf(totalPaise, 2),
+                    "Generated address " + (1 + random.nextInt(999)) + ", " + CITIES[random.nextInt(CITIES.length)],
+                    PAYMENT_MODES[random.nextInt(PAYMENT_MODES.length)], pickStatus(random)});
+            if (orders.size() == batchSize || i == orderCount) {
+                jdbcTemplate.batchUpdate("insert into orders (id, user_id, created_at, total_amount, shipping_address, "
+                        + "payment_mode, status) values (?, ?, ?, ?, ?, ?, ?)", orders);
+                jdbcTemplate.batchUpdate("insert into order_items (id, order_id, product_id, quantity, price) "
+                        + "values (?, ?, ?, ?, ?)", items);
+                orders.clear();
+                items.clear();
+                progress("orders", i, orderCount);
+            }
+        }
+        // Pooled generators hand out (value - allocation, value], so the next value must clear the ids used here
+        jdbcTemplate.execute("alter sequence orders_seq restart with " + (nextOrderId - 1 + ID_ALLOCATION_SIZE));
+        jdbcTemplate.execute("alter sequence order_items_seq restart with " + (nextItemId - 1 + ID_ALLOCATION_SIZE));
+    }
+
+    private String pickStatus(Random random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < STATUS_WEIGHTS.length; i++) {
+            if (roll < STATUS_WEIGHTS[i]) {
+                return STATUSES[i];
+            }
+        }
+        return STATUSES[0];
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    private void progress(String what, long done, long total) {
+        if (done == total || done % (batchSize * 100L) == 0) {
+            log.info("Generated {}/{} {}", done, total, what);
+        }
+    }
+
+    private static final class Catalog {
+        final long[] ids;
+        final long[] pricesInPaise;
+
+        Catalog(int size) {
+            ids = new long[size];
+            pricesInPaise = new long[size];
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.techouts.dto;
+
+import java.util.List;
+
+public record BulkStockRequest(Mode mode, List<StockAdjustment> items) {
+
+    public enum Mode {
+        SET,
+        ADD
+    }
+}
@@ -0,0 +1,7 @@
+package com.techouts.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailyTotal(LocalDate day, Long orders, BigDecimal amount) {
+}
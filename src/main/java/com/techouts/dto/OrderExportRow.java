@@ -0,0 +1,13 @@
+package com.techouts.dto;
+
+import com.techouts.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One row per order line (order columns repeated); orders without lines have null item columns
+public record OrderExportRow(Long orderId, LocalDateTime createdAt, OrderStatus status, Long userId,
+                             String username, String email, String shippingAddress, String paymentMode,
+                             BigDecimal totalAmount, Long itemId, Long productId, String productName,
+                             Integer quantity, BigDecimal price) {
+}
@@ -0,0 +1,7 @@
+package com.techouts.dto;
+
+import java.math.BigDecimal;
+
+public record OrderLineSummary(Long orderId, Long productId, String productName, String imageUrl,
+                               Integer quantity, BigDecimal price) {
+}
@@ -0,0 +1,18 @@
+package com.techouts.dto;
+
+import com.techouts.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Order history row; the JPQL constructor leaves items empty for the service to fill from a second query
+public record OrderSummary(Long id, LocalDateTime createdAt, OrderStatus status, String shippingAddress,
+                           String paymentMode, BigDecimal totalAmount, List<OrderLineSummary> items) {
+
+    public OrderSummary(Long id, LocalDateTime createdAt, OrderStatus status, String shippingAddress,
+                        String paymentMode, BigDecimal totalAmount) {
+        this(id, createdAt, status, shippingAddress, paymentMode, totalAmount, new ArrayList<>());
+    }
+}
@@ -0,0 +1,8 @@
+package com.techouts.dto;
+
+import java.math.BigDecimal;
+
+// What the product page and a buy-now checkout summary show
+public record ProductDetails(Long id, String name, String category, BigDecimal price, Integer stock,
+                             String description, String imageUrl) {
+}
@@ -0,0 +1,7 @@
+package com.techouts.dto;
+
+import java.math.BigDecimal;
+
+public record ProductExportRow(Long id, String name, String category, BigDecimal price, Integer stock,
+                               String description, String imageUrl) {
+}
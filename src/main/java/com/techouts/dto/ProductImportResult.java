@@ -0,0 +1,11 @@
+package com.techouts.dto;
+
+import java.util.List;
+
+// errors holds at most catalog.import.max-reported-errors entries; rejected counts all of them. stockIgnored counts
+// the updated rows that gave a stock but no expected_stock, so were saved with their stock left as it was.
+public record ProductImportResult(int created, int updated, int rejected, int stockIgnored, List<RowError> errors) {
+
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.techouts.dto;
+
+import java.math.BigDecimal;
+
+// What a product card shows; listing pages never need the description
+public record ProductSummary(Long id, String name, String category, BigDecimal price, Integer stock, String imageUrl) {
+}
@@ -0,0 +1,6 @@
+package com.techouts.dto;
+
+import com.techouts.entity.UserRole;
+
+public record RoleCount(UserRole role, Long users) {
+}
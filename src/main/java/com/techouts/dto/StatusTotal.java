@@ -0,0 +1,8 @@
+package com.techouts.dto;
+
+import com.techouts.entity.OrderStatus;
+
+import java.math.BigDecimal;
+
+public record StatusTotal(OrderStatus status, Long orders, BigDecimal amount) {
+}
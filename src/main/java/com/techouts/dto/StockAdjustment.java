@@ -0,0 +1,6 @@
+package com.techouts.dto;
+
+// quantity is the new stock level (SET) or the change to apply (ADD). With SET, expectedStock makes the
+// write conditional: it only applies while the stored level still equals it.
+public record StockAdjustment(Long productId, Integer quantity, Integer expectedStock) {
+}
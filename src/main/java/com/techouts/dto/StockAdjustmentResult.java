@@ -0,0 +1,13 @@
+package com.techouts.dto;
+
+public record StockAdjustmentResult(Long productId, Status status, Integer stock, String message) {
+
+    public enum Status {
+        UPDATED,
+        UNCHANGED,
+        NOT_FOUND,
+        INSUFFICIENT_STOCK,
+        CONFLICT,
+        INVALID
+    }
+}
@@ -0,0 +1,30 @@
+package com.techouts.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One row per blob in the BlobStore, keyed by the SHA-256 of its content. refCount is the number of users whose
+// profile picture is the blob; unreferencedSince is set when it drops to zero, and the collector deletes blobs
+// that stay unreferenced past its grace period.
+@Data
+@Entity
+@Table(name = "stored_blobs", indexes = {
+        @Index(name = "idx_stored_blobs_unreferenced_since", columnList = "unreferenced_since")
+})
+public class StoredBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    private LocalDateTime unreferencedSince;
+}
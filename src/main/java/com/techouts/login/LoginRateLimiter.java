@@ -0,0 +1,61 @@
+package com.techouts.login;
+
+import com.techouts.service.LoginRejectedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// Checked before the user lookup and the password hash, so a refused attempt costs neither a query nor BCrypt work.
+// Every attempt counts against the client address, which bounds one source however many identifiers it tries.
+// Only failures count against an identifier, whether or not it belongs to anyone, so a spread-out attack on one
+// account stalls without telling the attacker which accounts exist; a successful login clears its count.
+// The client address is only the visitor's when forwarded headers from trusted proxies are honoured
+// (server.forward-headers-strategy); otherwise everyone behind a proxy shares its address and its limit.
+@Component
+public class LoginRateLimiter {
+    private final SlidingWindowCounter addressAttempts;
+    private final SlidingWindowCounter identifierFailures;
+    private final int maxAddressAttempts;
+    private final int maxIdentifierFailures;
+
+    public LoginRateLimiter(@Value("${login.rate-limit.address-attempts:30}") int maxAddressAttempts,
+                            @Value("${login.rate-limit.address-window:PT1M}") Duration addressWindow,
+                            @Value("${login.rate-limit.identifier-failures:10}") int maxIdentifierFailures,
+                            @Value("${login.rate-limit.identifier-window:PT15M}") Duration identifierWindow,
+                            @Value("${login.rate-limit.max-keys:100000}") long maxKeys) {
+        this.addressAttempts = new SlidingWindowCounter(addressWindow, maxKeys);
+        this.identifierFailures = new SlidingWindowCounter(identifierWindow, maxKeys);
+        this.maxAddressAttempts = maxAddressAttempts;
+        this.maxIdentifierFailures = maxIdentifierFailures;
+    }
+
+    public void checkAllowed(String identifier, String clientAddress) {
+        if (clientAddress != null && addressAttempts.increment(clientAddress) > maxAddressAttempts) {
+            throw tooManyAttempts(addressAttempts.untilNextWindow());
+        }
+        if (identifierFailures.count(key(identifier)) >= maxIdentifierFailures) {
+            throw tooManyAttempts(identifierFailures.untilNextWindow());
+        }
+    }
+
+    public void failed(String identifier) {
+        identifierFailures.increment(key(identifier));
+    }
+
+    public void succeeded(String identifier) {
+        identifierFailures.reset(key(identifier));
+    }
+
+    private static String key(String identifier) {
+        return identifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static LoginRejectedException tooManyAttempts(Duration retryAfter) {
+        long minutes = Math.max(1, (retryAfter.toSeconds() + 59) / 60);
+        return new LoginRejectedException(LoginRejectedException.Reason.TOO_MANY_ATTEMPTS,
+                "Too many login attempts. Please try again in " + minutes + (minutes == 1 ? " minute." : " minutes."),
+                retryAfter);
+    }
+}
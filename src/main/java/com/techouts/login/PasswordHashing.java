@@ -0,0 +1,115 @@
+package com.techouts.login;
+
+import com.techouts.service.LoginRejectedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// BCrypt checks for logins run on a few platform threads with a short queue instead of on request threads, so a
+// burst of logins can use at most login.hashing.threads cores and the storefront keeps the rest. A login that finds
+// the queue full, or waits longer than login.hashing.max-wait, is turned away at once; its queued check is
+// cancelled before it runs, so abandoned logins cost no hashing either.
+@Component
+public class PasswordHashing {
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashing.class);
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[abxy]?\\$(\\d{2})\\$");
+    private static final Duration BUSY_RETRY = Duration.ofSeconds(5);
+
+    private final PasswordEncoder passwordEncoder;
+    private final int strength;
+    private final long maxWaitMillis;
+    private final ThreadPoolExecutor workers;
+    // Checked against when the identifier matches nobody, so unknown accounts take as long as wrong passwords
+    private final String unknownUserHash;
+
+    public PasswordHashing(PasswordEncoder passwordEncoder,
+                           MeterRegistry meterRegistry,
+                           @Value("${password-encoder.strength:10}") int strength,
+                           @Value("${login.hashing.threads:2}") int threads,
+                           @Value("${login.hashing.queue-capacity:64}") int queueCapacity,
+                           @Value("${login.hashing.max-wait:PT2S}") Duration maxWait) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        this.maxWaitMillis = maxWait.toMillis();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hashing-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.unknownUserHash = passwordEncoder.encode(UUID.randomUUID().toString());
+        Gauge.builder("shop.login.hashing.queued", workers, pool -> pool.getQueue().size())
+                .description("Password checks waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // A null hash stands for an unknown user and never matches
+    public boolean matches(String rawPassword, String encodedPassword) {
+        String hash = encodedPassword == null ? unknownUserHash : encodedPassword;
+        Future<Boolean> check;
+        try {
+            check = workers.submit(() -> passwordEncoder.matches(rawPassword, hash));
+        } catch (RejectedExecutionException ex) {
+            throw busy();
+        }
+        try {
+            return check.get(maxWaitMillis, TimeUnit.MILLISECONDS) && encodedPassword != null;
+        } catch (TimeoutException ex) {
+            check.cancel(false);
+            throw busy();
+        } catch (InterruptedException ex) {
+            check.cancel(false);
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Password check failed", ex.getCause());
+        }
+    }
+
+    // After a successful login with a hash of another cost than password-encoder.strength, re-encodes the password
+    // in the background and hands the new hash to save. Best effort: when the pool is busy the next login tries again.
+    public void upgradeIfNeeded(String rawPassword, String encodedPassword, Consumer<String> save) {
+        Matcher cost = BCRYPT_COST.matcher(encodedPassword);
+        if (!cost.find() || Integer.parseInt(cost.group(1)) == strength) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    save.accept(passwordEncoder.encode(rawPassword));
+                } catch (RuntimeException ex) {
+                    log.warn("Could not upgrade password hash: {}", ex.toString());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Logins come first
+        }
+    }
+
+    private static LoginRejectedException busy() {
+        return new LoginRejectedException(LoginRejectedException.Reason.BUSY,
+                "Login is busy right now. Please try again in a few seconds.", BUSY_RETRY);
+    }
+}
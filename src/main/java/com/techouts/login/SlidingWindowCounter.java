@@ -0,0 +1,84 @@
+package com.techouts.login;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+// Per-key event counts over a sliding window, approximated from two fixed windows: the previous window's count is
+// weighted by how much of it still overlaps the sliding one. Two ints per key instead of a timestamp per event, and
+// each update is one atomic compute on the key. Keys idle for two windows count nothing and are dropped; past
+// maxKeys the least used are evicted, which at worst forgives someone early.
+class SlidingWindowCounter {
+    private final long windowNanos;
+    private final LongSupplier nanoTime;
+    private final Cache<String, Window> windows;
+
+    SlidingWindowCounter(Duration window, long maxKeys) {
+        this(window, maxKeys, System::nanoTime);
+    }
+
+    // nanoTime stands in for System.nanoTime, for tests
+    SlidingWindowCounter(Duration window, long maxKeys, LongSupplier nanoTime) {
+        if (window.isZero() || window.isNegative()) {
+            throw new IllegalArgumentException("Sliding window must be positive: " + window);
+        }
+        this.windowNanos = window.toNanos();
+        this.nanoTime = nanoTime;
+        this.windows = Caffeine.newBuilder()
+                .ticker(nanoTime::getAsLong)
+                .maximumSize(maxKeys)
+                .expireAfterWrite(window.multipliedBy(2))
+                .build();
+    }
+
+    // Counts one event and returns the sliding count including it
+    double increment(String key) {
+        long now = nanoTime.getAsLong();
+        Window window = windows.asMap().compute(key, (k, current) -> roll(current, now).plusOne());
+        return window.estimate(now, windowNanos);
+    }
+
+    double count(String key) {
+        Window window = windows.getIfPresent(key);
+        if (window == null) {
+            return 0;
+        }
+        long now = nanoTime.getAsLong();
+        return roll(window, now).estimate(now, windowNanos);
+    }
+
+    void reset(String key) {
+        windows.invalidate(key);
+    }
+
+    // Until the current fixed window ends, after which this window's events start to fade out
+    Duration untilNextWindow() {
+        long elapsed = Math.floorMod(nanoTime.getAsLong(), windowNanos);
+        return Duration.ofNanos(windowNanos - elapsed);
+    }
+
+    private Window roll(Window window, long now) {
+        long start = now - Math.floorMod(now, windowNanos);
+        if (window == null || start - window.start() > windowNanos) {
+            return new Window(start, 0, 0);
+        }
+        if (start != window.start()) {
+            return new Window(start, window.current(), 0);
+        }
+        return window;
+    }
+
+    private record Window(long start, int previous, int current) {
+
+        Window plusOne() {
+            return new Window(start, previous, current + 1);
+        }
+
+        double estimate(long now, long windowNanos) {
+            double remaining = 1 - (double) (now - start) / windowNanos;
+            return previous * remaining + current;
+        }
+    }
+}
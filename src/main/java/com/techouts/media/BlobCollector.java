@@ -0,0 +1,127 @@
+package com.techouts.media;
+
+import com.techouts.repository.StoredBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Deletes blobs whose reference count has been zero for longer than blob-store.gc-grace. Each batch row-locks its
+// blobs, deletes the files and then the rows in one transaction; an upload of the same content meanwhile waits on
+// the lock and writes the blob again afterwards. A blob that some user still points at despite its count (a
+// failure between saving a user and adjusting the count) has its count corrected instead. Several instances can
+// collect at once: locked rows are skipped.
+//
+// A less frequent sweep records blobs with no row at all, left by uploads whose transaction rolled back after the
+// blob was published, as unreferenced so the next collections delete them too.
+@Component
+public class BlobCollector {
+    private static final Logger log = LoggerFactory.getLogger(BlobCollector.class);
+    private static final int SWEEP_CHUNK = 1000;
+
+    private final BlobStore blobStore;
+    private final StoredBlobRepository storedBlobRepository;
+    private final ProfilePictures profilePictures;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration grace;
+    private final int batchSize;
+
+    public BlobCollector(BlobStore blobStore,
+                         StoredBlobRepository storedBlobRepository,
+                         ProfilePictures profilePictures,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${blob-store.gc-grace:PT1H}") Duration grace,
+                         @Value("${blob-store.gc-batch-size:500}") int batchSize) {
+        this.blobStore = blobStore;
+        this.storedBlobRepository = storedBlobRepository;
+        this.profilePictures = profilePictures;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.grace = grace;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${blob-store.gc-interval:PT1H}", initialDelayString = "${blob-store.gc-interval:PT1H}")
+    public void collect() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(grace);
+        int deleted = 0;
+        int corrected = 0;
+        while (true) {
+            BatchResult batch = transactionTemplate.execute(status -> collectBatch(cutoff));
+            deleted += batch.deleted();
+            corrected += batch.corrected();
+            // A full batch that neither deleted nor corrected anything is all failed deletes, which the next batch
+            // would lock again; they are retried next run
+            if (batch.locked() < batchSize || batch.deleted() + batch.corrected() == 0) {
+                break;
+            }
+        }
+        if (deleted > 0 || corrected > 0) {
+            log.info("Deleted {} unreferenced blobs; corrected {} reference counts", deleted, corrected);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${blob-store.sweep-interval:P1D}", initialDelayString = "${blob-store.sweep-interval:P1D}")
+    public void sweepUntracked() {
+        Instant cutoff = Instant.now().minus(grace);
+        int adopted = 0;
+        try (Stream<String> keys = blobStore.keysStoredBefore(cutoff)) {
+            Iterator<String> iterator = keys.iterator();
+            List<String> chunk = new ArrayList<>(SWEEP_CHUNK);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == SWEEP_CHUNK || !iterator.hasNext()) {
+                    adopted += storedBlobRepository.adoptUntracked(chunk);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            log.warn("Blob sweep stopped early: {}", ex.toString());
+        }
+        if (adopted > 0) {
+            log.info("Found {} untracked blobs; they will be deleted once past the grace period", adopted);
+        }
+    }
+
+    private BatchResult collectBatch(LocalDateTime cutoff) {
+        List<String> hashes = storedBlobRepository.lockUnreferenced(cutoff, batchSize);
+        if (hashes.isEmpty()) {
+            return new BatchResult(0, 0, 0);
+        }
+        Map<String, Integer> referenced = storedBlobRepository.countUserReferences(hashes);
+        referenced.forEach(storedBlobRepository::setReferences);
+
+        List<String> orphans = new ArrayList<>(hashes.size());
+        for (String hash : hashes) {
+            if (referenced.containsKey(hash)) {
+                continue;
+            }
+            try {
+                profilePictures.deleteThumbnails(hash);
+                blobStore.delete(hash);
+                orphans.add(hash);
+            } catch (IOException ex) {
+                // Stays unreferenced and is retried next run
+                log.warn("Could not delete blob {}: {}", hash, ex.toString());
+            }
+        }
+        storedBlobRepository.deleteBlobs(orphans);
+        return new BatchResult(hashes.size(), orphans.size(), referenced.size());
+    }
+
+    private record BatchResult(int locked, int deleted, int corrected) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.techouts.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+// Content-addressed storage: a blob's key is the hex SHA-256 of its bytes, so storing the same bytes again keeps
+// the one copy. Keys say nothing about who uses a blob; reference counts live in stored_blobs and the
+// BlobCollector deletes what nothing references. LocalBlobStore is the implementation for blob-store.type=local.
+public interface BlobStore {
+
+    // Copies the content to temporary storage while hashing it; nothing is readable under the key until publish
+    StagedBlob stage(InputStream content) throws IOException;
+
+    // Makes a staged blob readable under its key, or drops it when the same content is already stored
+    void publish(StagedBlob blob) throws IOException;
+
+    void discard(StagedBlob blob);
+
+    InputStream open(String key) throws IOException;
+
+    boolean exists(String key);
+
+    void delete(String key) throws IOException;
+
+    // Every stored key last written before the cutoff; close the stream when done
+    Stream<String> keysStoredBefore(Instant cutoff) throws IOException;
+
+    interface StagedBlob {
+
+        String key();
+
+        long size();
+    }
+}
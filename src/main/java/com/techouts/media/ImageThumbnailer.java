@@ -0,0 +1,248 @@
+package com.techouts.media;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+// Square JPEG thumbnails from an uploaded image. Only the centred square is decoded, subsampled down to twice the
+// largest thumbnail, so a 40 megapixel photo never becomes a 160MB raster. The output is encoded from pixels alone,
+// which drops EXIF (camera, GPS), XMP and ICC data; the EXIF orientation is applied first so phone photos stay upright.
+final class ImageThumbnailer {
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final int ORIENTATION_TAG = 0x0112;
+    // EXIF sits in an APP1 segment right after the JPEG start marker
+    private static final int METADATA_SCAN_BYTES = 128 * 1024;
+
+    private ImageThumbnailer() {
+    }
+
+    // Reads the header only: rejects anything ImageIO cannot decode and dimensions over maxPixels
+    static void checkImage(InputStream content, long maxPixels) throws IOException {
+        try (ImageInputStream in = new MemoryCacheImageInputStream(content)) {
+            ImageReader reader = readerFor(in);
+            try {
+                reader.setInput(in, true, true);
+                checkPixels(reader.getWidth(0), reader.getHeight(0), maxPixels);
+            } catch (IIOException ex) {
+                throw new IllegalArgumentException("Please select a valid image file");
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // An image that does not decode throws IllegalArgumentException; IOException is left for failures to read the
+    // original or write a thumbnail, which a later attempt may get past
+    static void writeThumbnails(Source original, Map<Integer, Path> targets, long maxPixels) throws IOException {
+        int largest = Collections.max(targets.keySet());
+        BufferedImage square;
+        try (ImageInputStream in = new MemoryCacheImageInputStream(original.open())) {
+            ImageReader reader = readerFor(in);
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                checkPixels(width, height, maxPixels);
+                int side = Math.min(width, height);
+                int step = Math.max(1, side / (largest * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle((width - side) / 2, (height - side) / 2, side, side));
+                param.setSourceSubsampling(step, step, 0, 0);
+                square = reader.read(0, param);
+            } catch (IllegalArgumentException ex) {
+                throw ex;
+            } catch (IIOException | RuntimeException ex) {
+                // Decoders report corrupt data as either
+                throw new IllegalArgumentException("Image does not decode: " + ex, ex);
+            } finally {
+                reader.dispose();
+            }
+        }
+        int orientation;
+        try (InputStream in = original.open()) {
+            orientation = orientation(in);
+        }
+        square = orient(toRgb(square), orientation);
+        for (Map.Entry<Integer, Path> target : targets.entrySet()) {
+            writeJpeg(scale(square, target.getKey()), target.getValue());
+        }
+    }
+
+    private static ImageReader readerFor(ImageInputStream in) {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            throw new IllegalArgumentException("Please select a valid image file");
+        }
+        return readers.next();
+    }
+
+    private static void checkPixels(int width, int height, long maxPixels) {
+        if ((long) width * height > maxPixels) {
+            throw new IllegalArgumentException("Profile picture must be at most "
+                    + maxPixels / 1_000_000 + " megapixels");
+        }
+    }
+
+    // Flattens transparency onto white, since JPEG has no alpha channel
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    // Halving in steps keeps bilinear filtering from skipping source pixels on large reductions
+    private static BufferedImage scale(BufferedImage square, int size) {
+        BufferedImage current = square;
+        int side = square.getWidth();
+        while (side / 2 >= size) {
+            side /= 2;
+            current = resize(current, side);
+        }
+        return side == size ? current : resize(current, size);
+    }
+
+    private static BufferedImage resize(BufferedImage image, int side) {
+        BufferedImage resized = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resized.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, side, side, null);
+        } finally {
+            g.dispose();
+        }
+        return resized;
+    }
+
+    // Written next to the target and moved into place: /uploads is served as immutable, so a reader must never see
+    // a half-written file. The temporary name is unique, so two writers of the same thumbnail never share one.
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // EXIF orientation (1 = as stored) of a JPEG; any other format, or a JPEG without the tag, is upright
+    static int orientation(InputStream in) throws IOException {
+        byte[] head = in.readNBytes(METADATA_SCAN_BYTES);
+        if (head.length < 4 || (head[0] & 0xFF) != 0xFF || (head[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(head);
+        int pos = 2;
+        while (pos + 4 <= head.length && (head[pos] & 0xFF) == 0xFF) {
+            int marker = head[pos + 1] & 0xFF;
+            int length = buffer.getShort(pos + 2) & 0xFFFF;
+            if (marker == 0xDA) {
+                break;
+            }
+            if (marker == 0xE1 && pos + 10 <= head.length && buffer.getInt(pos + 4) == 0x45786966
+                    && buffer.getShort(pos + 8) == 0) {
+                return exifOrientation(buffer, pos + 10, Math.min(head.length, pos + 2 + length));
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static int exifOrientation(ByteBuffer buffer, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return 1;
+        }
+        buffer.order(buffer.getShort(tiff) == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        long offset = buffer.getInt(tiff + 4) & 0xFFFFFFFFL;
+        if (offset > end - tiff - 2) {
+            return 1;
+        }
+        int ifd = tiff + (int) offset;
+        int entries = buffer.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if ((buffer.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                int orientation = buffer.getShort(entry + 8) & 0xFFFF;
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    // Maps each displayed pixel back to the stored one for the eight EXIF orientations. Applied after the centre
+    // crop, which every one of them maps onto itself.
+    static BufferedImage orient(BufferedImage square, int orientation) {
+        if (orientation == 1) {
+            return square;
+        }
+        int n = square.getWidth();
+        int last = n - 1;
+        BufferedImage oriented = new BufferedImage(n, n, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                int rgb = switch (orientation) {
+                    case 2 -> square.getRGB(last - x, y);
+                    case 3 -> square.getRGB(last - x, last - y);
+                    case 4 -> square.getRGB(x, last - y);
+                    case 5 -> square.getRGB(y, x);
+                    case 6 -> square.getRGB(y, last - x);
+                    case 7 -> square.getRGB(last - y, last - x);
+                    default -> square.getRGB(last - y, x);
+                };
+                oriented.setRGB(x, y, rgb);
+            }
+        }
+        return oriented;
+    }
+
+    // Opens the image from the start; read once for the pixels and once for the EXIF orientation
+    interface Source {
+
+        InputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,145 @@
+package com.techouts.media;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Blobs live at <root>/<hex 0-2>/<hex 2-4>/<sha-256>. The 65,536 shard directories keep each one to a few hundred
+// entries even at tens of millions of blobs, and are created only as blobs land in them. Content is staged in
+// <root>/staging on the same file system, so publishing is a rename and a reader never sees a partial blob.
+@Component
+@ConditionalOnProperty(name = "blob-store.type", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStore implements BlobStore {
+    private static final Logger log = LoggerFactory.getLogger(LocalBlobStore.class);
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+    private static final String STAGING = "staging";
+    // Older staged files were left by a crash between stage and publish
+    private static final Duration STALE_STAGING = Duration.ofDays(1);
+
+    private final Path root;
+    private final Path staging;
+
+    public LocalBlobStore(@Value("${blob-store.local.root}") Path root) throws IOException {
+        this.root = root;
+        this.staging = root.resolve(STAGING);
+        Files.createDirectories(staging);
+        purgeStaging();
+    }
+
+    @Override
+    public StagedBlob stage(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(staging, "blob-", ".tmp");
+        MessageDigest digest = sha256();
+        long size;
+        try (DigestInputStream in = new DigestInputStream(content, digest);
+             OutputStream out = Files.newOutputStream(temp)) {
+            size = in.transferTo(out);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temp);
+            throw ex;
+        }
+        return new LocalStagedBlob(HexFormat.of().formatHex(digest.digest()), size, temp);
+    }
+
+    @Override
+    public void publish(StagedBlob blob) throws IOException {
+        LocalStagedBlob staged = (LocalStagedBlob) blob;
+        Path target = pathOf(staged.key());
+        if (Files.exists(target)) {
+            Files.deleteIfExists(staged.file());
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        // Losing a race to the same content replaces one identical file with another
+        Files.move(staged.file(), target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void discard(StagedBlob blob) {
+        try {
+            Files.deleteIfExists(((LocalStagedBlob) blob).file());
+        } catch (IOException ex) {
+            log.warn("Could not delete staged blob {}: {}", blob.key(), ex.toString());
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(pathOf(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(pathOf(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(pathOf(key));
+    }
+
+    @Override
+    public Stream<String> keysStoredBefore(Instant cutoff) throws IOException {
+        return Files.find(root, 3, (path, attributes) -> attributes.isRegularFile()
+                        && attributes.lastModifiedTime().toInstant().isBefore(cutoff)
+                        && KEY.matcher(path.getFileName().toString()).matches()
+                        && !path.startsWith(staging))
+                .map(path -> path.getFileName().toString());
+    }
+
+    private Path pathOf(String key) {
+        if (!KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Not a blob key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private void purgeStaging() throws IOException {
+        Instant cutoff = Instant.now().minus(STALE_STAGING);
+        try (Stream<Path> files = Files.list(staging)) {
+            files.forEach(file -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attributes.lastModifiedTime().toInstant().isBefore(cutoff)) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException ex) {
+                    // Published or discarded meanwhile
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private record LocalStagedBlob(String key, long size, Path file) implements StagedBlob {
+    }
+}
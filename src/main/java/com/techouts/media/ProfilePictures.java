@@ -0,0 +1,283 @@
+package com.techouts.media;
+
+import com.techouts.repository.StoredBlobRepository;
+import com.techouts.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Profile picture uploads. The request thread streams the upload into the BlobStore, which names it by its SHA-256,
+// and reads the image header. Decoding and resizing are CPU bound and run on a few platform threads once the
+// profile change commits; a full queue makes the uploading request do its own processing rather than pile up work.
+//
+// Each picture becomes /uploads/profile-pictures/<hex 0-2>/<hex 2-4>/<sha-256>-<size>.jpg for every
+// profile-pictures.sizes entry, and the user points at the largest. Identical uploads share one blob and one set of
+// thumbnails. Every user pointing at a blob holds a reference in stored_blobs; the BlobCollector removes blobs
+// nobody references, thumbnails included. The original is kept in the BlobStore, outside the served /uploads tree,
+// only so thumbnails can be regenerated: at startup any referenced picture missing a size is processed again.
+@Component
+public class ProfilePictures {
+    private static final Logger log = LoggerFactory.getLogger(ProfilePictures.class);
+    private static final Path THUMBNAIL_DIR = Paths.get("uploads/profile-pictures");
+    private static final String THUMBNAIL_URL = "/uploads/profile-pictures/";
+    private static final Pattern THUMBNAIL_URL_PATTERN = Pattern.compile(Pattern.quote(THUMBNAIL_URL)
+            + "[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})-\\d+\\.jpg");
+    private static final int STARTUP_SCAN_PAGE = 1000;
+
+    private final BlobStore blobStore;
+    private final StoredBlobRepository storedBlobRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate newTransaction;
+    private final int[] sizes;
+    private final long maxUploadBytes;
+    private final long maxPixels;
+    private final ThreadPoolExecutor workers;
+    // Hashes queued or being processed; an upload of the same image meanwhile, or the startup scan, does not queue
+    // it again
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    public ProfilePictures(BlobStore blobStore,
+                           StoredBlobRepository storedBlobRepository,
+                           UserRepository userRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${profile-pictures.sizes:64,128,256}") int[] sizes,
+                           @Value("${profile-pictures.max-upload-size:5MB}") DataSize maxUploadSize,
+                           @Value("${profile-pictures.max-pixels:40000000}") long maxPixels,
+                           @Value("${profile-pictures.processing-threads:2}") int processingThreads,
+                           @Value("${profile-pictures.queue-capacity:100}") int queueCapacity) {
+        if (sizes.length == 0 || Arrays.stream(sizes).anyMatch(size -> size <= 0)) {
+            throw new IllegalArgumentException("profile-pictures.sizes must list positive pixel sizes");
+        }
+        this.blobStore = blobStore;
+        this.storedBlobRepository = storedBlobRepository;
+        this.userRepository = userRepository;
+        // Failures are recorded from worker threads and from the completion callback of the upload's transaction,
+        // which can no longer commit anything itself
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.sizes = Arrays.stream(sizes).sorted().distinct().toArray();
+        this.maxUploadBytes = maxUploadSize.toBytes();
+        this.maxPixels = maxPixels;
+        this.workers = new ThreadPoolExecutor(processingThreads, processingThreads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("profile-picture-", 0).daemon().factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // Returns the URL to store on the user, who now holds a reference to the picture; call inside the transaction
+    // that saves the user. Thumbnails are generated once that transaction commits.
+    public String store(MultipartFile file) throws IOException {
+        if (file.getSize() > maxUploadBytes) {
+            throw new IllegalArgumentException("Profile picture size should be less than "
+                    + DataSize.ofBytes(maxUploadBytes).toMegabytes() + "MB");
+        }
+        String contentType = file.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("Please select a valid image file");
+        }
+        try (InputStream in = file.getInputStream()) {
+            ImageThumbnailer.checkImage(in, maxPixels);
+        }
+
+        BlobStore.StagedBlob blob;
+        try (InputStream in = file.getInputStream()) {
+            blob = blobStore.stage(in);
+        }
+        String hash = blob.key();
+        try {
+            // Referenced before it is published: the row lock makes a collector that is deleting the same content
+            // finish first, so the publish below writes it back
+            storedBlobRepository.retain(hash);
+            blobStore.publish(blob);
+        } catch (IOException | RuntimeException ex) {
+            blobStore.discard(blob);
+            throw ex;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    processIfMissing(hash);
+                }
+            });
+        } else {
+            processIfMissing(hash);
+        }
+        return thumbnailUrl(hash, sizes[sizes.length - 1]);
+    }
+
+    // For URLs set some other way (admin edits, deleted users); anything that is not one of ours is ignored
+    public void retain(String url) {
+        String hash = hashOf(url);
+        if (hash != null) {
+            storedBlobRepository.retain(hash);
+        }
+    }
+
+    public void release(String url) {
+        String hash = hashOf(url);
+        if (hash != null) {
+            storedBlobRepository.release(hash, 1);
+        }
+    }
+
+    // For templates: the same picture at another size, or the URL unchanged when it is not one of ours
+    // (older uploads, addresses entered by an admin)
+    public String variant(String url, int size) {
+        String hash = hashOf(url);
+        return hash == null ? url : thumbnailUrl(hash, size);
+    }
+
+    public String srcset(String url) {
+        String hash = hashOf(url);
+        if (hash == null) {
+            return null;
+        }
+        return Arrays.stream(sizes)
+                .mapToObj(size -> thumbnailUrl(hash, size) + " " + size + "w")
+                .collect(Collectors.joining(", "));
+    }
+
+    void deleteThumbnails(String hash) throws IOException {
+        for (Path thumbnail : thumbnailPaths(hash).values()) {
+            Files.deleteIfExists(thumbnail);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void reprocessOnStartup() {
+        workers.execute(this::reprocessMissing);
+    }
+
+    private void reprocessMissing() {
+        int regenerating = 0;
+        String after = "";
+        List<String> page;
+        do {
+            page = storedBlobRepository.findReferencedAfter(after, STARTUP_SCAN_PAGE);
+            for (String hash : page) {
+                if (!thumbnailsExist(hash) && blobStore.exists(hash) && schedule(hash)) {
+                    regenerating++;
+                }
+            }
+            after = page.isEmpty() ? after : page.get(page.size() - 1);
+        } while (page.size() == STARTUP_SCAN_PAGE);
+        if (regenerating > 0) {
+            log.info("Regenerating thumbnails for {} profile pictures", regenerating);
+        }
+    }
+
+    private void processIfMissing(String hash) {
+        if (!thumbnailsExist(hash)) {
+            schedule(hash);
+        }
+    }
+
+    // False when the hash is already queued or being processed
+    private boolean schedule(String hash) {
+        if (!queued.add(hash)) {
+            return false;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    process(hash);
+                } finally {
+                    queued.remove(hash);
+                }
+            });
+        } catch (RuntimeException ex) {
+            queued.remove(hash);
+            throw ex;
+        }
+        return true;
+    }
+
+    private void process(String hash) {
+        try {
+            Files.createDirectories(THUMBNAIL_DIR.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)));
+            ImageThumbnailer.writeThumbnails(() -> blobStore.open(hash), thumbnailPaths(hash), maxPixels);
+        } catch (IllegalArgumentException ex) {
+            // The header looked fine but the image does not decode; nothing will ever render, so unset it and
+            // leave the blob to the collector
+            log.warn("Could not process profile picture {}: {}", hash, ex.toString());
+            try {
+                newTransaction.executeWithoutResult(status -> {
+                    int cleared = userRepository.clearProfilePicture(THUMBNAIL_URL + shard(hash) + hash + "-%");
+                    storedBlobRepository.release(hash, cleared);
+                });
+            } catch (RuntimeException clearEx) {
+                log.warn("Could not unset profile picture {}: {}", hash, clearEx.toString());
+            }
+        } catch (IOException | RuntimeException ex) {
+            // Reading the original or writing a thumbnail failed, not the image: keep the picture, and the next
+            // upload of it or the startup scan tries again
+            log.warn("Could not write thumbnails for profile picture {}: {}", hash, ex.toString());
+        }
+    }
+
+    private boolean thumbnailsExist(String hash) {
+        return thumbnailPaths(hash).values().stream().allMatch(Files::exists);
+    }
+
+    private Map<Integer, Path> thumbnailPaths(String hash) {
+        Path dir = THUMBNAIL_DIR.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4));
+        Map<Integer, Path> paths = new LinkedHashMap<>();
+        for (int size : sizes) {
+            paths.put(size, dir.resolve(hash + "-" + size + ".jpg"));
+        }
+        return paths;
+    }
+
+    private static String thumbnailUrl(String hash, int size) {
+        return THUMBNAIL_URL + shard(hash) + hash + "-" + size + ".jpg";
+    }
+
+    private static String shard(String hash) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/";
+    }
+
+    private static String hashOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        Matcher matcher = THUMBNAIL_URL_PATTERN.matcher(url);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+}
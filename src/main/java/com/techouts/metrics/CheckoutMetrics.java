@@ -0,0 +1,49 @@
+package com.techouts.metrics;
+
+import com.techouts.service.CheckoutRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+// shop.checkout.outcomes{outcome=...}: one count per checkout attempt, whether it was rejected up front
+// by the controller or settled later by the checkout queue
+@Component
+public class CheckoutMetrics {
+
+    public enum Outcome {
+        PLACED,
+        OUT_OF_STOCK,
+        EMPTY_CART,
+        INVALID,
+        QUEUE_FULL,
+        FAILED
+    }
+
+    private final Map<Outcome, Counter> counters = new EnumMap<>(Outcome.class);
+
+    public CheckoutMetrics(MeterRegistry registry) {
+        for (Outcome outcome : Outcome.values()) {
+            counters.put(outcome, Counter.builder("shop.checkout.outcomes")
+                    .description("Checkout attempts by outcome")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+    }
+
+    public void record(Outcome outcome) {
+        counters.get(outcome).increment();
+    }
+
+    public void rejected(IllegalArgumentException ex) {
+        if (ex instanceof CheckoutRejectedException rejected) {
+            record(rejected.getReason() == CheckoutRejectedException.Reason.OUT_OF_STOCK
+                    ? Outcome.OUT_OF_STOCK : Outcome.EMPTY_CART);
+        } else {
+            record(Outcome.INVALID);
+        }
+    }
+}
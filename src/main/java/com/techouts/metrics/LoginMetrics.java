@@ -0,0 +1,36 @@
+package com.techouts.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+// shop.login.outcomes{outcome=...}: one count per login attempt that got past the form checks
+@Component
+public class LoginMetrics {
+
+    public enum Outcome {
+        SUCCEEDED,
+        FAILED,
+        TOO_MANY_ATTEMPTS,
+        BUSY
+    }
+
+    private final Map<Outcome, Counter> counters = new EnumMap<>(Outcome.class);
+
+    public LoginMetrics(MeterRegistry registry) {
+        for (Outcome outcome : Outcome.values()) {
+            counters.put(outcome, Counter.builder("shop.login.outcomes")
+                    .description("Login attempts by outcome")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+    }
+
+    public void record(Outcome outcome) {
+        counters.get(outcome).increment();
+    }
+}
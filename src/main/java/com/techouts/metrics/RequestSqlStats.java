@@ -0,0 +1,67 @@
+package com.techouts.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// SQL issued by Hibernate while one HTTP request is handled. Bound to the request thread by SqlMonitorFilter;
+// work on other threads (the checkout queue, startup runners) is not attributed to any request.
+public final class RequestSqlStats {
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private final HttpServletRequest request;
+    // statement text (parameters are bound as ?) -> times prepared in this request
+    private final Map<String, Integer> statements = new LinkedHashMap<>();
+    private int count;
+    private long executionNanos;
+
+    private RequestSqlStats(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    static RequestSqlStats begin(HttpServletRequest request) {
+        RequestSqlStats stats = new RequestSqlStats(request);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    int record(String sql) {
+        statements.merge(sql, 1, Integer::sum);
+        return ++count;
+    }
+
+    void addExecutionNanos(long nanos) {
+        executionNanos += nanos;
+    }
+
+    HttpServletRequest getRequest() {
+        return request;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+
+    public Map<String, Integer> repeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        statements.forEach((sql, times) -> {
+            if (times >= threshold) {
+                repeated.put(sql, times);
+            }
+        });
+        return repeated;
+    }
+}
@@ -0,0 +1,9 @@
+package com.techouts.metrics;
+
+// Not an IllegalStateException: repository exception translation would rewrap that as a data access API error
+public class SqlBudgetExceededException extends RuntimeException {
+
+    public SqlBudgetExceededException(String endpoint, int budget) {
+        super("Request to " + endpoint + " issued more than " + budget + " SQL statements");
+    }
+}
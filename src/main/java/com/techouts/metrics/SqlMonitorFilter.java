@@ -0,0 +1,89 @@
+package com.techouts.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Publishes shop.http.sql.statements / shop.http.sql.time per route and logs requests that issue more than
+// sql.monitor.warn-threshold statements or repeat one statement sql.monitor.repeat-threshold times (the usual
+// shape of an N+1: the same select by id once per row of a list)
+@Component
+public class SqlMonitorFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(SqlMonitorFilter.class);
+    private static final int MAX_LOGGED_SQL_LENGTH = 200;
+
+    private final MeterRegistry registry;
+    private final int warnThreshold;
+    private final int repeatThreshold;
+
+    public SqlMonitorFilter(MeterRegistry registry,
+                            @Value("${sql.monitor.warn-threshold:20}") int warnThreshold,
+                            @Value("${sql.monitor.repeat-threshold:5}") int repeatThreshold) {
+        this.registry = registry;
+        this.warnThreshold = warnThreshold;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestSqlStats stats = RequestSqlStats.begin(request);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestSqlStats.end();
+            report(request, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, RequestSqlStats stats) {
+        if (stats.getCount() == 0) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("shop.http.sql.statements")
+                .description("SQL statements issued per request")
+                .tag("uri", uri)
+                .tag("method", request.getMethod())
+                .register(registry)
+                .record(stats.getCount());
+        Timer.builder("shop.http.sql.time")
+                .description("JDBC execution time per request")
+                .tag("uri", uri)
+                .tag("method", request.getMethod())
+                .register(registry)
+                .record(stats.getExecutionNanos(), TimeUnit.NANOSECONDS);
+
+        Map<String, Integer> repeated = stats.repeatedStatements(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            registry.counter("shop.http.sql.repeated", "uri", uri, "method", request.getMethod()).increment();
+        }
+        if (stats.getCount() > warnThreshold || !repeated.isEmpty()) {
+            StringBuilder message = new StringBuilder();
+            repeated.forEach((sql, times) -> message.append("\n  ").append(times).append("x ").append(abbreviate(sql)));
+            log.warn("{} {} issued {} SQL statements ({} ms executing){}{}", request.getMethod(), request.getRequestURI(),
+                    stats.getCount(), TimeUnit.NANOSECONDS.toMillis(stats.getExecutionNanos()),
+                    repeated.isEmpty() ? "" : "; probable N+1, repeated statements:", message);
+        }
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ").trim();
+        return flat.length() <= MAX_LOGGED_SQL_LENGTH ? flat : flat.substring(0, MAX_LOGGED_SQL_LENGTH) + "...";
+    }
+}
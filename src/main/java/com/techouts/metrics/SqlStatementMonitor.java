@@ -0,0 +1,77 @@
+package com.techouts.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Counts every statement Hibernate prepares against the request that caused it. Plain JdbcTemplate work
+// (stock reservation batches, the search index rebuild) bypasses Hibernate and is not counted.
+//
+// sql.monitor.budgets caps statements per route pattern ("/orders=10,/admin/orders=15", anything else gets
+// sql.monitor.default-budget). With sql.monitor.enforce=true the statement that goes over budget fails the
+// request with SqlBudgetExceededException, so an integration test driving the endpoint fails with it.
+@Component
+public class SqlStatementMonitor implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private final boolean enforce;
+    private final int defaultBudget;
+    private final Map<String, Integer> budgets = new HashMap<>();
+
+    public SqlStatementMonitor(@Value("${sql.monitor.enforce:false}") boolean enforce,
+                               @Value("${sql.monitor.default-budget:50}") int defaultBudget,
+                               @Value("${sql.monitor.budgets:}") String budgets) {
+        this.enforce = enforce;
+        this.defaultBudget = defaultBudget;
+        for (String entry : budgets.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("sql.monitor.budgets entries must look like /path=count: " + entry);
+            }
+            this.budgets.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+        hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlTimingListener.class.getName());
+    }
+
+    @Override
+    public String inspect(String sql) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            int count = stats.record(sql);
+            if (enforce) {
+                String endpoint = endpoint(stats.getRequest());
+                int budget = budgetFor(endpoint);
+                // Only the first statement over budget throws; error handling after it may still need the database
+                if (count == budget + 1) {
+                    throw new SqlBudgetExceededException(endpoint, budget);
+                }
+            }
+        }
+        return sql;
+    }
+
+    public int budgetFor(String endpoint) {
+        return budgets.getOrDefault(endpoint, defaultBudget);
+    }
+
+    // The matched route pattern (/product/{id}) once the handler is resolved, so budgets and metrics do not
+    // split per id; falls back to the raw path
+    static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+}
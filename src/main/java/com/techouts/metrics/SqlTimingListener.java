@@ -0,0 +1,36 @@
+package com.techouts.metrics;
+
+import org.hibernate.SessionEventListener;
+
+// Instantiated by Hibernate once per session (hibernate.session.events.auto); adds JDBC execution time to the
+// current request's SQL stats
+public class SqlTimingListener implements SessionEventListener {
+    private long started;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        started = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        started = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record();
+    }
+
+    private void record() {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.addExecutionNanos(System.nanoTime() - started);
+        }
+    }
+}
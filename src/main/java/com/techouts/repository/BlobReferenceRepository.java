@@ -0,0 +1,31 @@
+package com.techouts.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface BlobReferenceRepository {
+
+    // Adds a reference, creating the row on first use. The row stays locked until the caller's transaction ends,
+    // which is what keeps the collector from deleting a blob that is being re-referenced.
+    void retain(String hash);
+
+    void release(String hash, int count);
+
+    // Blobs unreferenced since before the cutoff, row-locked; rows another transaction holds are skipped
+    List<String> lockUnreferenced(LocalDateTime cutoff, int limit);
+
+    // How many users' profile pictures actually point at each of the given blobs; unreferenced ones are absent
+    Map<String, Integer> countUserReferences(Collection<String> hashes);
+
+    void setReferences(String hash, int count);
+
+    void deleteBlobs(Collection<String> hashes);
+
+    // Records stored blobs that have no row yet as unreferenced; returns how many were new
+    int adoptUntracked(Collection<String> hashes);
+
+    // Referenced blobs in key order, for walking all of them a page at a time
+    List<String> findReferencedAfter(String after, int limit);
+}
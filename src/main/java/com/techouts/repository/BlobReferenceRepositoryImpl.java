@@ -0,0 +1,85 @@
+package com.techouts.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reference counts change with upserts and conditional updates, which JPQL cannot express; hashes travel as one
+// array parameter so the statement text does not depend on the batch size
+class BlobReferenceRepositoryImpl implements BlobReferenceRepository {
+    // Profile picture URLs end in /<sha-256>-<size>.jpg
+    private static final String USER_PICTURE_HASH =
+            "substring(profile_picture from '/([0-9a-f]{64})-[0-9]+\\.jpg$')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    BlobReferenceRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void retain(String hash) {
+        jdbcTemplate.update("insert into stored_blobs (hash, ref_count) values (?, 1) "
+                + "on conflict (hash) do update set ref_count = stored_blobs.ref_count + 1, unreferenced_since = null",
+                hash);
+    }
+
+    @Override
+    public void release(String hash, int count) {
+        jdbcTemplate.update("update stored_blobs set ref_count = greatest(ref_count - ?, 0), "
+                        + "unreferenced_since = case when ref_count - ? <= 0 then localtimestamp end where hash = ?",
+                count, count, hash);
+    }
+
+    @Override
+    public List<String> lockUnreferenced(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.queryForList("select hash from stored_blobs where ref_count = 0 and unreferenced_since < ? "
+                + "order by unreferenced_since limit ? for update skip locked", String.class, cutoff, limit);
+    }
+
+    @Override
+    public Map<String, Integer> countUserReferences(Collection<String> hashes) {
+        String[] keys = hashes.toArray(String[]::new);
+        Map<String, Integer> counts = new HashMap<>();
+        jdbcTemplate.query("select hash, count(*) from (select " + USER_PICTURE_HASH + " as hash from users "
+                        + "where profile_picture like '/uploads/%') pictures where hash = any(?) group by hash",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", keys)),
+                rs -> {
+                    counts.put(rs.getString(1), rs.getInt(2));
+                });
+        return counts;
+    }
+
+    @Override
+    public void setReferences(String hash, int count) {
+        jdbcTemplate.update("update stored_blobs set ref_count = ?, "
+                + "unreferenced_since = case when ? = 0 then coalesce(unreferenced_since, localtimestamp) end "
+                + "where hash = ?", count, count, hash);
+    }
+
+    @Override
+    public void deleteBlobs(Collection<String> hashes) {
+        String[] keys = hashes.toArray(String[]::new);
+        jdbcTemplate.update("delete from stored_blobs where hash = any(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", keys)));
+    }
+
+    @Override
+    public int adoptUntracked(Collection<String> hashes) {
+        String[] keys = hashes.toArray(String[]::new);
+        return jdbcTemplate.update("insert into stored_blobs (hash, ref_count, unreferenced_since) "
+                        + "select hash, 0, localtimestamp from unnest(cast(? as varchar[])) as h(hash) "
+                        + "on conflict (hash) do nothing",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", keys)));
+    }
+
+    @Override
+    public List<String> findReferencedAfter(String after, int limit) {
+        return jdbcTemplate.queryForList("select hash from stored_blobs where hash > ? and ref_count > 0 "
+                + "order by hash limit ?", String.class, after, limit);
+    }
+}
@@ -1,6 +1,7 @@
 package com.techouts.repository;
 
 import com.techouts.entity.CartItem;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,15 +10,49 @@ import java.util.List;
 import java.util.Optional;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
-    Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
-
     @EntityGraph(attributePaths = "product")
     List<CartItem> findByCartId(Long cartId);
 
+    // Ownership check and product load in one statement
+    @EntityGraph(attributePaths = "product")
+    Optional<CartItem> findByIdAndCartId(Long id, Long cartId);
+
     int countByCartId(Long cartId);
 
     @Query("select coalesce(sum(ci.quantity), 0) from CartItem ci where ci.cart.id = :cartId")
     int sumQuantityByCartId(Long cartId);
 
-    void deleteByCartId(Long cartId);
+    @Query("select coalesce(sum(ci.quantity), 0) from CartItem ci where ci.cart.user.id = :userId")
+    int sumQuantityByUserId(Long userId);
+
+    // Inserts the line or adds to it, but only while the resulting quantity stays within stock
+    @Modifying
+    @Query(value = """
+            insert into cart_item (cart_id, product_id, quantity)
+            select :cartId, p.id, :quantity from products p where p.id = :productId and p.stock >= :quantity
+            on conflict (cart_id, product_id) do update
+                set quantity = cart_item.quantity + excluded.quantity
+                where cart_item.quantity + excluded.quantity <= (select p2.stock from products p2 where p2.id = excluded.product_id)
+            """, nativeQuery = true)
+    int upsertQuantity(Long cartId, Long productId, int quantity);
+
+    @Modifying
+    @Query("update CartItem ci set ci.quantity = ci.quantity + :delta "
+            + "where ci.id = :id and ci.cart.id = :cartId and ci.quantity + :delta >= 1 "
+            + "and ci.quantity + :delta <= (select p.stock from Products p where p.id = ci.product.id)")
+    int adjustQuantity(Long id, Long cartId, int delta);
+
+    @Modifying
+    @Query("update CartItem ci set ci.quantity = :quantity "
+            + "where ci.id = :id and ci.cart.id = :cartId "
+            + "and :quantity <= (select p.stock from Products p where p.id = ci.product.id)")
+    int setQuantity(Long id, Long cartId, int quantity);
+
+    @Modifying
+    @Query("delete from CartItem ci where ci.id = :id and ci.cart.id = :cartId")
+    int deleteByIdAndCartId(Long id, Long cartId);
+
+    @Modifying
+    @Query("delete from CartItem ci where ci.cart.id = :cartId")
+    int deleteByCartId(Long cartId);
 }
@@ -2,9 +2,22 @@ package com.techouts.repository;
 
 import com.techouts.entity.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserId(Long userId);
+
+    @Query("select c.id from Cart c where c.user.id = :userId")
+    Optional<Long> findIdByUserId(Long userId);
+
+    @Modifying
+    @Query("delete from CartItem ci where ci.cart.id in (select c.id from Cart c where c.user.id = :userId)")
+    int deleteItemsByUserId(Long userId);
+
+    @Modifying
+    @Query("delete from Cart c where c.user.id = :userId")
+    int deleteByUserId(Long userId);
 }
@@ -0,0 +1,15 @@
+package com.techouts.repository;
+
+import com.techouts.dto.OrderExportRow;
+import com.techouts.entity.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+public interface OrderExportRepository {
+
+    // Forward-only cursor over the matching orders joined with their lines, in sort order with each order's
+    // lines adjacent. Must be consumed and closed inside a transaction.
+    Stream<OrderExportRow> streamForExport(Specification<Order> spec, Sort sort);
+}
@@ -0,0 +1,61 @@
+package com.techouts.repository;
+
+import com.techouts.dto.OrderExportRow;
+import com.techouts.entity.Order;
+import com.techouts.entity.OrderItems;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Constructor projection rather than entities: rows are never attached to the persistence context, so a
+// long export does not grow the session. With a fetch size inside a transaction the PostgreSQL driver reads
+// through a server-side cursor instead of buffering the whole result.
+class OrderExportRepositoryImpl implements OrderExportRepository {
+    static final int FETCH_SIZE = 1000;
+
+    private final EntityManager entityManager;
+
+    OrderExportRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Stream<OrderExportRow> streamForExport(Specification<Order> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderExportRow> query = cb.createQuery(OrderExportRow.class);
+        Root<Order> order = query.from(Order.class);
+        Join<Order, User> user = order.join("user");
+        Join<Order, OrderItems> item = order.join("orderItems", JoinType.LEFT);
+        Join<OrderItems, Products> product = item.join("product", JoinType.LEFT);
+        query.select(cb.construct(OrderExportRow.class,
+                order.get("id"), order.get("createdAt"), order.get("status"), user.get("id"),
+                user.get("username"), user.get("email"), order.get("shippingAddress"), order.get("paymentMode"),
+                order.get("totalAmount"), item.get("id"), product.get("id"), product.get("name"),
+                item.get("quantity"), item.get("price")));
+        Predicate predicate = spec == null ? null : spec.toPredicate(order, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        // Every order sort ends on id, so lines of one order stay together
+        List<jakarta.persistence.criteria.Order> orderBy = new ArrayList<>(QueryUtils.toOrders(sort, order, cb));
+        orderBy.add(cb.asc(item.get("id")));
+        query.orderBy(orderBy);
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .getResultStream();
+    }
+}
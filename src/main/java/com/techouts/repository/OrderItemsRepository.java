@@ -1,6 +1,7 @@
 package com.techouts.repository;
 
 import com.techouts.entity.OrderItems;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,5 +9,6 @@ import java.util.List;
 
 @Repository
 public interface OrderItemsRepository extends JpaRepository<OrderItems, Long> {
+    @EntityGraph(attributePaths = "product")
     List<OrderItems> findByOrderId(Long orderId);
 }
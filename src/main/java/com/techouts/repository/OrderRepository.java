@@ -1,17 +1,56 @@
 package com.techouts.repository;
 
+import com.techouts.dto.DailyTotal;
+import com.techouts.dto.OrderLineSummary;
+import com.techouts.dto.OrderSummary;
+import com.techouts.dto.StatusTotal;
 import com.techouts.entity.Order;
-import org.springframework.data.jpa.repository.EntityGraph;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
-    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
-    List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>,
+        OrderExportRepository {
+    // A user's newest orders, and the ones after a (createdAt, id) cursor; both walk idx_orders_user_created_at_id
+    @Query("select new com.techouts.dto.OrderSummary(o.id, o.createdAt, o.status, o.shippingAddress, o.paymentMode, "
+            + "o.totalAmount) from Order o where o.user.id = :userId order by o.createdAt desc, o.id desc")
+    List<OrderSummary> findSummariesByUserId(Long userId, Limit limit);
 
-    @EntityGraph(attributePaths = {"user", "orderItems", "orderItems.product"})
-    List<Order> findAllByOrderByCreatedAtDesc();
+    @Query("select new com.techouts.dto.OrderSummary(o.id, o.createdAt, o.status, o.shippingAddress, o.paymentMode, "
+            + "o.totalAmount) from Order o where o.user.id = :userId "
+            + "and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id)) "
+            + "order by o.createdAt desc, o.id desc")
+    List<OrderSummary> findSummariesByUserIdBefore(Long userId, LocalDateTime createdAt, Long id, Limit limit);
+
+    @Query("select new com.techouts.dto.OrderLineSummary(o.id, p.id, p.name, p.imageUrl, oi.quantity, oi.price) "
+            + "from OrderItems oi join oi.order o join oi.product p where o.id in :orderIds order by oi.id")
+    List<OrderLineSummary> findLineSummariesByOrderIds(Collection<Long> orderIds);
 
     long countByUserId(Long userId);
+
+    @Query("select new com.techouts.dto.StatusTotal(o.status, count(o), coalesce(sum(o.totalAmount), 0)) "
+            + "from Order o group by o.status")
+    List<StatusTotal> totalsByStatus();
+
+    // Revenue by order day; cancelled orders are not revenue
+    @Query("select new com.techouts.dto.DailyTotal(cast(o.createdAt as LocalDate), count(o), coalesce(sum(o.totalAmount), 0)) "
+            + "from Order o where o.createdAt >= :since "
+            + "and (o.status is null or o.status <> com.techouts.entity.OrderStatus.CANCELLED) "
+            + "group by cast(o.createdAt as LocalDate)")
+    List<DailyTotal> revenueByDaySince(LocalDateTime since);
+
+    Optional<Order> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    // select ... for update: status changes that must happen at most once read the status under the row lock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id = :id")
+    Optional<Order> findByIdForUpdate(Long id);
 }
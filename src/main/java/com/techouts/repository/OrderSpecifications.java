@@ -0,0 +1,84 @@
+package com.techouts.repository;
+
+import com.techouts.entity.Order;
+import com.techouts.entity.OrderStatus;
+import com.techouts.entity.User;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    // Loads the order owner in the same statement; line items stay lazy
+    public static Specification<Order> fetchUser() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("user", JoinType.INNER);
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Order> hasStatus(OrderStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    // Matches the user by exact id or by username/email/phone fragment, resolved through a users subquery
+    public static Specification<Order> userMatches(String userQuery) {
+        String q = userQuery.trim().toLowerCase(Locale.ROOT);
+        String pattern = "%" + q.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        Long exactId = q.matches("\\d{1,18}") ? Long.valueOf(q) : null;
+        return (root, query, cb) -> {
+            Subquery<Long> users = query.subquery(Long.class);
+            Root<User> user = users.from(User.class);
+            Predicate match = cb.or(
+                    cb.like(cb.lower(user.get("username")), pattern, '\\'),
+                    cb.like(cb.lower(user.get("email")), pattern, '\\'),
+                    cb.like(user.get("phone"), pattern, '\\')
+            );
+            if (exactId != null) {
+                match = cb.or(match, cb.equal(user.get("id"), exactId));
+            }
+            users.select(user.get("id")).where(match);
+            return root.get("user").get("id").in(users);
+        };
+    }
+
+    // Keyset cursor for (created_at, id) ordering in either direction
+    public static Specification<Order> createdAfter(LocalDateTime createdAt, Long id, boolean descending) {
+        return (root, query, cb) -> createdAtCursor(root, cb, createdAt, id, descending);
+    }
+
+    // Keyset cursor for (status, created_at desc, id desc) ordering
+    public static Specification<Order> statusAfter(OrderStatus status, LocalDateTime createdAt, Long id, boolean descending) {
+        return (root, query, cb) -> cb.or(
+                descending
+                        ? cb.lessThan(root.<OrderStatus>get("status"), status)
+                        : cb.greaterThan(root.<OrderStatus>get("status"), status),
+                cb.and(cb.equal(root.get("status"), status), createdAtCursor(root, cb, createdAt, id, true))
+        );
+    }
+
+    private static Predicate createdAtCursor(Root<Order> root, CriteriaBuilder cb,
+                                             LocalDateTime createdAt, Long id, boolean descending) {
+        if (descending) {
+            return cb.or(
+                    cb.lessThan(root.get("createdAt"), createdAt),
+                    cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id))
+            );
+        }
+        return cb.or(
+                cb.greaterThan(root.get("createdAt"), createdAt),
+                cb.and(cb.equal(root.get("createdAt"), createdAt), cb.greaterThan(root.get("id"), id))
+        );
+    }
+}
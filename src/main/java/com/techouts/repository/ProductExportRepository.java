@@ -0,0 +1,14 @@
+package com.techouts.repository;
+
+import com.techouts.dto.ProductExportRow;
+import com.techouts.entity.Products;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+public interface ProductExportRepository {
+
+    // Forward-only cursor over the matching products; must be consumed and closed inside a transaction
+    Stream<ProductExportRow> streamForExport(Specification<Products> spec, Sort sort);
+}
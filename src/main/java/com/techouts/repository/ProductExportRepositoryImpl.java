@@ -0,0 +1,43 @@
+package com.techouts.repository;
+
+import com.techouts.dto.ProductExportRow;
+import com.techouts.entity.Products;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.stream.Stream;
+
+// Same streaming approach as OrderExportRepositoryImpl
+class ProductExportRepositoryImpl implements ProductExportRepository {
+
+    private final EntityManager entityManager;
+
+    ProductExportRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Stream<ProductExportRow> streamForExport(Specification<Products> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductExportRow> query = cb.createQuery(ProductExportRow.class);
+        Root<Products> product = query.from(Products.class);
+        query.select(cb.construct(ProductExportRow.class,
+                product.get("id"), product.get("name"), product.get("category"), product.get("price"),
+                product.get("stock"), product.get("description"), product.get("imageUrl")));
+        Predicate predicate = spec == null ? null : spec.toPredicate(product, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, product, cb));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, OrderExportRepositoryImpl.FETCH_SIZE)
+                .getResultStream();
+    }
+}
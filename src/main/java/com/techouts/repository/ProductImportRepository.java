@@ -0,0 +1,13 @@
+package com.techouts.repository;
+
+import com.techouts.entity.Products;
+
+import java.util.List;
+
+public interface ProductImportRepository {
+
+    // Inserts the products without an id (setting the generated id on each) and updates the ones with an id,
+    // in JDBC batches on the current transaction; an update with a null stock keeps the stored stock. Returns the
+    // products whose id matched no row.
+    List<Products> upsertProducts(List<Products> products);
+}
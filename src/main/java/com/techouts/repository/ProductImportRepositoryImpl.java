@@ -0,0 +1,85 @@
+package com.techouts.repository;
+
+import com.techouts.entity.Products;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// Plain JDBC batches: products still take IDENTITY ids, which Hibernate cannot batch inserts for, and merging an
+// imported row through the persistence context would first load the product it replaces
+class ProductImportRepositoryImpl implements ProductImportRepository {
+    private static final String INSERT = "insert into products (name, category, price, stock, description, image_url) "
+            + "values (?, ?, ?, ?, ?, ?)";
+    // A null stock leaves the stored stock alone
+    private static final String UPDATE = "update products set name = ?, category = ?, price = ?, "
+            + "stock = coalesce(?, stock), description = ?, image_url = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProductImportRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Products> upsertProducts(List<Products> products) {
+        List<Products> inserts = new ArrayList<>();
+        List<Products> updates = new ArrayList<>();
+        for (Products product : products) {
+            (product.getId() == null ? inserts : updates).add(product);
+        }
+
+        // Row locks are taken in id order, as checkout's reserveStock and lockStock take them, so an import during
+        // live traffic cannot deadlock with a checkout
+        updates.sort(Comparator.comparing(Products::getId));
+        List<Products> missing = new ArrayList<>();
+        if (!updates.isEmpty()) {
+            int[][] updated = jdbcTemplate.batchUpdate(UPDATE, updates, updates.size(), (ps, product) -> {
+                bind(ps, product);
+                ps.setLong(7, product.getId());
+            });
+            for (int i = 0; i < updates.size(); i++) {
+                if (updated[0][i] == 0) {
+                    missing.add(updates.get(i));
+                }
+            }
+        }
+        if (!inserts.isEmpty()) {
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            bind(ps, inserts.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return inserts.size();
+                        }
+                    }, keys);
+            List<Map<String, Object>> generated = keys.getKeyList();
+            for (int i = 0; i < inserts.size(); i++) {
+                inserts.get(i).setId(((Number) generated.get(i).get("id")).longValue());
+            }
+        }
+        return missing;
+    }
+
+    private static void bind(PreparedStatement ps, Products product) throws SQLException {
+        ps.setString(1, product.getName());
+        ps.setString(2, product.getCategory());
+        ps.setBigDecimal(3, product.getPrice());
+        ps.setObject(4, product.getStock(), Types.INTEGER);
+        ps.setString(5, product.getDescription());
+        ps.setString(6, product.getImageUrl());
+    }
+}
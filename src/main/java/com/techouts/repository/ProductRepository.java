@@ -1,12 +1,41 @@
 package com.techouts.repository;
 
+import com.techouts.dto.ProductDetails;
+import com.techouts.dto.ProductSummary;
 import com.techouts.entity.Products;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ProductRepository extends JpaRepository<Products, Long> {
-    List<Products> findByCategory(String category);
-    
-    List<Products> findByNameContainingIgnoreCase(String name);
+public interface ProductRepository extends JpaRepository<Products, Long>, JpaSpecificationExecutor<Products>,
+        ProductStockRepository, ProductExportRepository, ProductImportRepository {
+    // Constructor-expression projections: plain records, never attached to the persistence context
+    @Query("select new com.techouts.dto.ProductSummary(p.id, p.name, p.category, p.price, p.stock, p.imageUrl) "
+            + "from Products p order by p.id")
+    List<ProductSummary> findAllSummaries();
+
+    @Query("select new com.techouts.dto.ProductSummary(p.id, p.name, p.category, p.price, p.stock, p.imageUrl) "
+            + "from Products p where p.category = :category order by p.id")
+    List<ProductSummary> findSummariesByCategory(String category);
+
+    @Query("select new com.techouts.dto.ProductSummary(p.id, p.name, p.category, p.price, p.stock, p.imageUrl) "
+            + "from Products p where p.id in :ids")
+    List<ProductSummary> findSummariesByIdIn(Collection<Long> ids);
+
+    @Query("select new com.techouts.dto.ProductDetails(p.id, p.name, p.category, p.price, p.stock, p.description, "
+            + "p.imageUrl) from Products p where p.id = :id")
+    Optional<ProductDetails> findDetailsById(Long id);
+
+    @Query("select distinct p.category from Products p where p.category is not null and trim(p.category) <> '' order by p.category")
+    List<String> findDistinctCategories();
+
+    // Conditional decrement: returns 0 when the product is missing or has less stock than requested
+    @Modifying
+    @Query("update Products p set p.stock = p.stock - :quantity where p.id = :productId and p.stock >= :quantity")
+    int decrementStock(Long productId, int quantity);
 }
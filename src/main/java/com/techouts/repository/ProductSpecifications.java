@@ -0,0 +1,49 @@
+package com.techouts.repository;
+
+import com.techouts.entity.Products;
+import jakarta.persistence.criteria.Expression;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
+
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Products> nameContains(String search) {
+        String pattern = "%" + escapeLike(search.trim().toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+    }
+
+    public static Specification<Products> inCategory(String category) {
+        String normalized = category.trim().toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("category")), normalized);
+    }
+
+    // Keyset cursor for the default (id) ordering
+    public static Specification<Products> idAfter(Long afterId) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), afterId);
+    }
+
+    // Keyset cursor for (lower(category), id) ordering; ties on category are always broken by ascending id
+    public static Specification<Products> categoryAfter(String afterCategory, Long afterId, boolean descending) {
+        String normalized = afterCategory.toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> {
+            Expression<String> category = cb.lower(root.get("category"));
+            // The redundant bound on category alone is what lets the (lower(category), id) indexes start the scan
+            // at the cursor instead of filtering every row before it
+            return cb.and(
+                    descending ? cb.lessThanOrEqualTo(category, normalized) : cb.greaterThanOrEqualTo(category, normalized),
+                    cb.or(
+                            descending ? cb.lessThan(category, normalized) : cb.greaterThan(category, normalized),
+                            cb.greaterThan(root.get("id"), afterId)
+                    )
+            );
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
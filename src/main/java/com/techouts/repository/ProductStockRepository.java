@@ -0,0 +1,23 @@
+package com.techouts.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ProductStockRepository {
+
+    // Conditional decrement for many products in one JDBC batch; returns the ids that lacked stock
+    List<Long> reserveStock(Map<Long, Integer> quantitiesByProduct);
+
+    void releaseStock(Map<Long, Integer> quantitiesByProduct);
+
+    // Row-locks the given products in id order, the same order reserveStock takes its locks in; missing ids
+    // are simply absent from the result
+    List<LockedStock> lockStock(Collection<Long> productIds);
+
+    // Sets every listed product's stock in a single statement; lock the rows with lockStock first
+    void setStock(Map<Long, Integer> stockByProduct);
+
+    record LockedStock(Long id, int stock, String category) {
+    }
+}
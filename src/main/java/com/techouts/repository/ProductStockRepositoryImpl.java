@@ -0,0 +1,67 @@
+package com.techouts.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Bulk JPQL updates cannot be JDBC-batched, so multi-line stock changes go through JdbcTemplate on the
+// transaction's connection. Rows are updated in map iteration order: pass a sorted map to keep lock order stable.
+class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> reserveStock(Map<Long, Integer> quantitiesByProduct) {
+        List<Long> productIds = new ArrayList<>(quantitiesByProduct.keySet());
+        List<Object[]> args = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            int quantity = quantitiesByProduct.get(productId);
+            args.add(new Object[]{quantity, productId, quantity});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(
+                "update products set stock = stock - ? where id = ? and stock >= ?", args);
+
+        List<Long> insufficient = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                insufficient.add(productIds.get(i));
+            }
+        }
+        return insufficient;
+    }
+
+    @Override
+    public void releaseStock(Map<Long, Integer> quantitiesByProduct) {
+        List<Object[]> args = new ArrayList<>(quantitiesByProduct.size());
+        quantitiesByProduct.forEach((productId, quantity) -> args.add(new Object[]{quantity, productId}));
+        jdbcTemplate.batchUpdate("update products set stock = stock + ? where id = ?", args);
+    }
+
+    // Ids travel as one array parameter, so the statement text is the same for any batch size
+    @Override
+    public List<LockedStock> lockStock(Collection<Long> productIds) {
+        Long[] ids = productIds.toArray(Long[]::new);
+        return jdbcTemplate.query("select id, stock, category from products where id = any(?) order by id for update",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (rs, rowNum) -> new LockedStock(rs.getLong("id"), rs.getInt("stock"), rs.getString("category")));
+    }
+
+    @Override
+    public void setStock(Map<Long, Integer> stockByProduct) {
+        Long[] ids = stockByProduct.keySet().toArray(Long[]::new);
+        Integer[] stocks = stockByProduct.values().toArray(Integer[]::new);
+        jdbcTemplate.update("update products p set stock = v.stock "
+                        + "from unnest(cast(? as bigint[]), cast(? as integer[])) as v(id, stock) where p.id = v.id",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids));
+                    ps.setArray(2, ps.getConnection().createArrayOf("integer", stocks));
+                });
+    }
+}
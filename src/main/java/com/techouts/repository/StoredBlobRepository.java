@@ -0,0 +1,7 @@
+package com.techouts.repository;
+
+import com.techouts.entity.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String>, BlobReferenceRepository {
+}
@@ -1,9 +1,14 @@
 package com.techouts.repository;
 
+import com.techouts.dto.RoleCount;
 import com.techouts.entity.User;
 import com.techouts.entity.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -14,4 +19,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
 
     long countByRole(UserRole role);
+
+    @Query("select new com.techouts.dto.RoleCount(u.role, count(u)) from User u group by u.role")
+    List<RoleCount> countByRoleGrouped();
+
+    @Modifying
+    @Query("update User u set u.profilePicture = null where u.profilePicture like :urlPattern")
+    int clearProfilePicture(String urlPattern);
+
+    // Only replaces the hash the caller read, so a password changed meanwhile is kept
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newHash where u.id = :id and u.password = :oldHash")
+    int replacePasswordHash(Long id, String oldHash, String newHash);
 }
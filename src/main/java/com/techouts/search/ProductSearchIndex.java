@@ -0,0 +1,287 @@
+package com.techouts.search;
+
+import com.techouts.entity.Products;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class ProductSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    // A query term that is only a prefix of the indexed token scores lower than an exact token match
+    private static final float PREFIX_FACTOR = 0.5f;
+    // Best score first, ties by id
+    private static final Comparator<Map.Entry<Long, Float>> RANKING =
+            Map.Entry.<Long, Float>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock rebuildLock = new ReentrantLock();
+
+    // term -> (product id -> field-weighted term score); sorted so prefixes resolve to a contiguous range
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> termsByProduct = new HashMap<>();
+    // Updates since the running rebuild started scanning, in order; null when no rebuild is running. Guarded by lock.
+    private List<Change> changesDuringRebuild;
+
+    public ProductSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // The table scan runs without the lock, so searches and updates carry on meanwhile. Updates made during the
+    // scan may or may not be in what it reads; they are recorded and replayed onto the new maps, under the write
+    // lock, before those replace the live ones.
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            NavigableMap<String, Map<Long, Float>> freshPostings = new TreeMap<>();
+            Map<Long, Set<String>> freshTerms = new HashMap<>();
+            try {
+                jdbcTemplate.query("select id, name, category, description from products", rs -> {
+                    addDocument(freshPostings, freshTerms, new Document(rs.getLong("id"),
+                            rs.getString("name"), rs.getString("category"), rs.getString("description")));
+                });
+            } catch (RuntimeException ex) {
+                lock.writeLock().lock();
+                try {
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw ex;
+            }
+            int replayed;
+            lock.writeLock().lock();
+            try {
+                replayed = changesDuringRebuild.size();
+                for (Change change : changesDuringRebuild) {
+                    apply(freshPostings, freshTerms, change);
+                }
+                changesDuringRebuild = null;
+                postings.clear();
+                postings.putAll(freshPostings);
+                termsByProduct.clear();
+                termsByProduct.putAll(freshTerms);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Indexed {} products ({} distinct terms) for search; {} updates made meanwhile replayed",
+                    freshTerms.size(), freshPostings.size(), replayed);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public void index(Products product) {
+        update(List.of(Change.index(product)));
+    }
+
+    // One write lock for the whole batch, so searches wait once rather than once per product
+    public void indexAll(Collection<Products> products) {
+        List<Change> changes = new ArrayList<>(products.size());
+        for (Products product : products) {
+            changes.add(Change.index(product));
+        }
+        update(changes);
+    }
+
+    public void remove(Long productId) {
+        update(List.of(new Change(productId, null)));
+    }
+
+    // Every query term must match (exactly or as a prefix) some token of the product; best score first. Only the
+    // requested slice of the ranking is sorted, so a common term over a large catalog costs a bounded heap rather
+    // than a sort of every hit; total still counts them all.
+    public Hits search(String query, int offset, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return Hits.NONE;
+        }
+        lock.readLock().lock();
+        try {
+            int documents = Math.max(1, termsByProduct.size());
+            Map<Long, Float> scores = null;
+            for (String term : terms) {
+                Map<Long, Float> termScores = scoreTerm(term, documents);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Hits.NONE;
+                }
+            }
+            return new Hits(top(scores, (int) Math.min((long) offset + limit, scores.size()), offset), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Keeps the best `keep` entries in a heap whose head is the worst of them, then drops the first `skip`
+    private static List<Long> top(Map<Long, Float> scores, int keep, int skip) {
+        if (skip >= keep) {
+            return List.of();
+        }
+        PriorityQueue<Map.Entry<Long, Float>> best = new PriorityQueue<>(keep, RANKING.reversed());
+        for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+            if (best.size() < keep) {
+                best.add(entry);
+            } else if (RANKING.compare(entry, best.peek()) < 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+        List<Map.Entry<Long, Float>> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        List<Long> ids = new ArrayList<>(keep - skip);
+        for (Map.Entry<Long, Float> entry : ranked.subList(skip, ranked.size())) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    private Map<Long, Float> scoreTerm(String term, int documents) {
+        Map<Long, Float> best = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Float>> entry : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            Map<Long, Float> posting = entry.getValue();
+            float idf = (float) Math.log(1.0 + (double) documents / posting.size());
+            float factor = entry.getKey().equals(term) ? 1.0f : PREFIX_FACTOR;
+            for (Map.Entry<Long, Float> hit : posting.entrySet()) {
+                best.merge(hit.getKey(), hit.getValue() * idf * factor, Math::max);
+            }
+        }
+        return best;
+    }
+
+    private void update(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            for (Change change : changes) {
+                apply(postings, termsByProduct, change);
+            }
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.addAll(changes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(NavigableMap<String, Map<Long, Float>> targetPostings, Map<Long, Set<String>> targetTerms,
+                       Change change) {
+        removeDocument(targetPostings, targetTerms, change.productId());
+        if (change.document() != null) {
+            addDocument(targetPostings, targetTerms, change.document());
+        }
+    }
+
+    private void addDocument(Map<String, Map<Long, Float>> targetPostings, Map<Long, Set<String>> targetTerms,
+                             Document document) {
+        Map<String, Float> weights = new HashMap<>();
+        accumulate(weights, document.name(), NAME_WEIGHT);
+        accumulate(weights, document.category(), CATEGORY_WEIGHT);
+        accumulate(weights, document.description(), DESCRIPTION_WEIGHT);
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            targetPostings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(document.id(), entry.getValue());
+        }
+        targetTerms.put(document.id(), weights.keySet());
+    }
+
+    private void removeDocument(Map<String, Map<Long, Float>> targetPostings, Map<Long, Set<String>> targetTerms,
+                                Long productId) {
+        Set<String> terms = targetTerms.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> posting = targetPostings.get(term);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    targetPostings.remove(term);
+                }
+            }
+        }
+    }
+
+    // Repeated tokens add up, damped so long descriptions cannot outweigh a name match
+    private void accumulate(Map<String, Float> weights, String text, float fieldWeight) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : tokenize(text)) {
+            counts.merge(token, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            float score = fieldWeight * (1.0f + (float) Math.log(entry.getValue()));
+            weights.merge(entry.getKey(), score, Float::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // The indexed fields, copied so a later change to the entity cannot alter a recorded update
+    private record Document(long id, String name, String category, String description) {
+    }
+
+    // A document to (re)index, or a removal when document is null
+    private record Change(Long productId, Document document) {
+        static Change index(Products product) {
+            return new Change(product.getId(), new Document(product.getId(),
+                    product.getName(), product.getCategory(), product.getDescription()));
+        }
+    }
+
+    // One slice of the ranking, and how many products matched in all
+    public record Hits(List<Long> ids, int total) {
+        static final Hits NONE = new Hits(List.of(), 0);
+    }
+}
@@ -0,0 +1,22 @@
+package com.techouts.service;
+
+// Checkout refused for a reason worth counting separately; still an IllegalArgumentException so existing
+// handlers keep showing the message to the user
+public class CheckoutRejectedException extends IllegalArgumentException {
+
+    public enum Reason {
+        OUT_OF_STOCK,
+        EMPTY_CART
+    }
+
+    private final Reason reason;
+
+    public CheckoutRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,35 @@
+package com.techouts.service;
+
+import java.util.Locale;
+
+public enum ExportFormat {
+    CSV("text/csv;charset=UTF-8", "csv"),
+    JSON("application/json", "json");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat parse(String format) {
+        if (format == null || format.isBlank()) {
+            return CSV;
+        }
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+    }
+}
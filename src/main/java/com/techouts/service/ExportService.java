@@ -0,0 +1,15 @@
+package com.techouts.service;
+
+import com.techouts.entity.Order;
+import com.techouts.entity.Products;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+    void exportOrders(Specification<Order> filter, Sort sort, ExportFormat format, OutputStream out) throws IOException;
+
+    void exportProducts(Specification<Products> filter, Sort sort, ExportFormat format, OutputStream out) throws IOException;
+}
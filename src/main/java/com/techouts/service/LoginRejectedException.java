@@ -0,0 +1,30 @@
+package com.techouts.service;
+
+import java.time.Duration;
+
+// Login refused before the password was checked; still an IllegalArgumentException so the message is shown on the
+// login form like any other login error
+public class LoginRejectedException extends IllegalArgumentException {
+
+    public enum Reason {
+        TOO_MANY_ATTEMPTS,
+        BUSY
+    }
+
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public LoginRejectedException(Reason reason, String message, Duration retryAfter) {
+        super(message);
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
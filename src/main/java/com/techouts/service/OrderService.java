@@ -1,17 +1,37 @@
 package com.techouts.service;
 
+import com.techouts.dto.OrderSummary;
 import com.techouts.entity.Order;
 import com.techouts.entity.OrderItems;
+import com.techouts.entity.OrderStatus;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderService {
     Order placeOrder(Long userId, Long directProductId, Integer directQuantity, String shippingAddress, String paymentMode);
 
-    List<Order> getOrderHistory(Long userId);
+    Order placeOrder(Long userId, Long directProductId, Integer directQuantity, String shippingAddress, String paymentMode,
+                     String idempotencyKey);
+
+    Optional<Order> findByIdempotencyKey(Long userId, String idempotencyKey);
+
+    // The payment modes offered at checkout, in display order
+    List<String> getPaymentModes();
+
+    // Throws IllegalArgumentException when the address is blank or the payment mode is not offered
+    void validateCheckout(String shippingAddress, String paymentMode);
+
+    // Up to limit of the user's orders, newest first, starting after the (afterCreatedAt, afterId) cursor when given
+    List<OrderSummary> getOrderHistory(Long userId, LocalDateTime afterCreatedAt, Long afterId, int limit);
     
     Order getOrderById(Long orderId);
     
     List<OrderItems> getOrderItems(Long orderId);
 
     void cancelOrder(Long userId, Long orderId);
+
+    // An admin moving an order forward, or cancelling it for its owner
+    void updateStatus(Long orderId, OrderStatus status);
 }
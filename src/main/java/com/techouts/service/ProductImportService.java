@@ -0,0 +1,10 @@
+package com.techouts.service;
+
+import com.techouts.dto.ProductImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ProductImportService {
+    ProductImportResult importProducts(InputStream csv) throws IOException;
+}
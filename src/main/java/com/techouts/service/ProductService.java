@@ -1,13 +1,27 @@
 package com.techouts.service;
 
+import com.techouts.dto.ProductDetails;
+import com.techouts.dto.ProductSummary;
 import com.techouts.entity.Products;
+import org.springframework.data.domain.Page;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 public interface ProductService {
-    List<Products> getProducts(String category);
+    List<ProductSummary> getProducts(String category);
 
-    Products getById(Long productId);
+    // A cached, read-only snapshot; writes load the entity from the repository instead
+    ProductDetails getById(Long productId);
     
-    List<Products> searchProductsByName(String name);
+    // The best catalog.search.storefront-limit matches; the total counts every match
+    Page<ProductSummary> searchProductsByName(String name);
+
+    // Pages, and the total, only reach catalog.search.max-window results deep
+    Page<Products> searchProducts(String query, int page, int size);
+
+    List<String> getCategories();
+
+    // Throws IllegalArgumentException naming the first invalid field
+    void validateProduct(String name, String category, BigDecimal price, Integer stock, String description, String imageUrl);
 }
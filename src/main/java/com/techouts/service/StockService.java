@@ -0,0 +1,12 @@
+package com.techouts.service;
+
+import com.techouts.dto.BulkStockRequest;
+import com.techouts.dto.StockAdjustment;
+import com.techouts.dto.StockAdjustmentResult;
+
+import java.util.List;
+
+public interface StockService {
+    // One result per adjustment, in request order
+    List<StockAdjustmentResult> adjustStock(BulkStockRequest.Mode mode, List<StockAdjustment> adjustments);
+}
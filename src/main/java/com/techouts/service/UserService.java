@@ -8,9 +8,11 @@ import java.util.Optional;
 public interface UserService {
     User register(String name, String username, String email, String phone, String password, String confirmPassword);
 
-    Optional<User> login(String emailOrPhone, String rawPassword);
+    Optional<User> login(String emailOrPhone, String rawPassword, String clientAddress);
 
     User findById(Long id);
+
+    void deleteUser(User user);
     
     void updateProfile(Long id, String name, String username, String email, String phone, String address, String gender, String dateOfBirth, MultipartFile profilePictureFile);
 }
@@ -1,8 +1,9 @@
 package com.techouts.service.impl;
 
+import com.techouts.cache.CartCountCache;
+import com.techouts.cache.CartIdCache;
 import com.techouts.entity.Cart;
 import com.techouts.entity.CartItem;
-import com.techouts.entity.Products;
 import com.techouts.entity.User;
 import com.techouts.repository.CartItemRepository;
 import com.techouts.repository.CartRepository;
@@ -21,12 +22,16 @@ public class CartItemsServiceImpl implements CartItemsService {
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final CartCountCache cartCountCache;
+    private final CartIdCache cartIdCache;
 
-    public CartItemsServiceImpl(CartRepository cartRepository, CartItemRepository cartItemRepository, ProductRepository productRepository, UserRepository userRepository) {
+    public CartItemsServiceImpl(CartRepository cartRepository, CartItemRepository cartItemRepository, ProductRepository productRepository, UserRepository userRepository, CartCountCache cartCountCache, CartIdCache cartIdCache) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
+        this.cartCountCache = cartCountCache;
+        this.cartIdCache = cartIdCache;
     }
 
     @Override
@@ -36,25 +41,11 @@ public class CartItemsServiceImpl implements CartItemsService {
             throw new IllegalArgumentException("Quantity must be >= 1");
         }
 
-        Cart cart = getCartForUser(userId);
-        Products product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
-
-        CartItem item = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId).orElseGet(() -> {
-            CartItem ci = new CartItem();
-            ci.setCart(cart);
-            ci.setProduct(product);
-            ci.setQuantity(0);
-            return ci;
-        });
-
-        int finalQty = item.getQuantity() + quantity;
-        if (finalQty > product.getStock()) {
-            throw new IllegalArgumentException("Not enough stock");
+        if (cartItemRepository.upsertQuantity(getCartIdForUser(userId), productId, quantity) == 0) {
+            // Nothing inserted or updated: work out why only on the failure path
+            throw new IllegalArgumentException(productRepository.existsById(productId) ? "Not enough stock" : "Product not found");
         }
-
-        item.setQuantity(finalQty);
-        cartItemRepository.save(item);
+        cartCountCache.adjust(userId, quantity);
     }
 
     @Override
@@ -75,73 +66,73 @@ public class CartItemsServiceImpl implements CartItemsService {
         if (quantity == null || quantity < 1) {
             throw new IllegalArgumentException("Quantity must be >= 1");
         }
-        CartItem item = getOwnedItem(userId, cartItemId);
-        if (quantity > item.getProduct().getStock()) {
+        if (cartItemRepository.setQuantity(cartItemId, getCartIdForUser(userId), quantity) == 0) {
+            getOwnedItem(userId, cartItemId);
             throw new IllegalArgumentException("Not enough stock");
         }
-        item.setQuantity(quantity);
-        cartItemRepository.save(item);
+        // The previous quantity is not read back, so reload the badge count on next use
+        cartCountCache.invalidate(userId);
     }
 
     @Override
     @Transactional
     public void remove(Long userId, Long cartItemId) {
-        CartItem item = getOwnedItem(userId, cartItemId);
-        cartItemRepository.delete(item);
+        if (cartItemRepository.deleteByIdAndCartId(cartItemId, getCartIdForUser(userId)) == 0) {
+            throw new IllegalArgumentException("Cart item not found");
+        }
+        // The deleted quantity is not read back, so reload the badge count on next use
+        cartCountCache.invalidate(userId);
     }
 
     @Override
     public List<CartItem> getCartItems(Long userId) {
-        Cart cart = getCartForUser(userId);
-        return cartItemRepository.findByCartId(cart.getId());
+        // The full item list is loaded anyway, so re-sync the badge count for free
+        return cartCountCache.resync(userId, () -> cartItemRepository.findByCartId(getCartIdForUser(userId)),
+                items -> items.stream().mapToInt(CartItem::getQuantity).sum());
     }
 
     @Override
     public int getCartItemCount(Long userId) {
-        Cart cart = getCartForUser(userId);
-        return cartItemRepository.sumQuantityByCartId(cart.getId());
+        return cartCountCache.get(userId, cartItemRepository::sumQuantityByUserId);
     }
 
     @Override
     @Transactional
     public void clearCart(Long userId) {
-        Cart cart = getCartForUser(userId);
-        cartItemRepository.deleteByCartId(cart.getId());
+        cartItemRepository.deleteByCartId(getCartIdForUser(userId));
+        cartCountCache.set(userId, 0);
     }
 
     private void changeQty(Long userId, Long cartItemId, int delta) {
-        CartItem item = getOwnedItem(userId, cartItemId);
-        int updated = item.getQuantity() + delta;
-        if (updated < 1) {
-            throw new IllegalArgumentException("Quantity must be >= 1");
-        }
-        if (updated > item.getProduct().getStock()) {
+        if (cartItemRepository.adjustQuantity(cartItemId, getCartIdForUser(userId), delta) == 0) {
+            CartItem item = getOwnedItem(userId, cartItemId);
+            if (item.getQuantity() + delta < 1) {
+                throw new IllegalArgumentException("Quantity must be >= 1");
+            }
             throw new IllegalArgumentException("Not enough stock");
         }
-        item.setQuantity(updated);
-        cartItemRepository.save(item);
+        cartCountCache.adjust(userId, delta);
     }
 
     private CartItem getOwnedItem(Long userId, Long cartItemId) {
-        Cart cart = getCartForUser(userId);
-        CartItem item = cartItemRepository.findById(cartItemId)
+        return cartItemRepository.findByIdAndCartId(cartItemId, getCartIdForUser(userId))
                 .orElseThrow(() -> new IllegalArgumentException("Cart item not found"));
-        if (!item.getCart().getId().equals(cart.getId())) {
-            throw new IllegalArgumentException("Item does not belong to user");
-        }
-        return item;
     }
 
-    private Cart getCartForUser(Long userId) {
-        return cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    // Create cart if it doesn't exist (for existing users)
-                    Cart cart = new Cart();
-                    // We need to fetch the user to set the relationship
-                    User user = userRepository.findById(userId)
-                            .orElseThrow(() -> new IllegalArgumentException("User not found"));
-                    cart.setUser(user);
-                    return cartRepository.save(cart);
-                });
+    private Long getCartIdForUser(Long userId) {
+        Long cartId = cartIdCache.get(userId, id -> cartRepository.findIdByUserId(id).orElse(null));
+        if (cartId != null) {
+            return cartId;
+        }
+        // Create cart if it doesn't exist (for existing users)
+        Cart cart = new Cart();
+        // We need to fetch the user to set the relationship
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        cart.setUser(user);
+        Long createdId = cartRepository.save(cart).getId();
+        // Cached only once committed, so a rolled back cart is never handed out
+        cartIdCache.put(userId, createdId);
+        return createdId;
     }
 }
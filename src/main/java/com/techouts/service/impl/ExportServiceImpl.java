@@ -0,0 +1,198 @@
+package com.techouts.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techouts.dto.OrderExportRow;
+import com.techouts.dto.ProductExportRow;
+import com.techouts.entity.Order;
+import com.techouts.entity.Products;
+import com.techouts.repository.OrderRepository;
+import com.techouts.repository.ProductRepository;
+import com.techouts.service.ExportFormat;
+import com.techouts.service.ExportService;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// Rows go from the database cursor straight to the response: nothing is collected, so memory stays flat
+// whatever the row count. The transaction stays open for the whole download because the cursor lives in it.
+@Service
+public class ExportServiceImpl implements ExportService {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportServiceImpl(OrderRepository orderRepository, ProductRepository productRepository, ObjectMapper objectMapper) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOrders(Specification<Order> filter, Sort sort, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<OrderExportRow> rows = orderRepository.streamForExport(filter, sort)) {
+            if (format == ExportFormat.JSON) {
+                writeOrdersJson(rows.iterator(), out);
+            } else {
+                writeOrdersCsv(rows.iterator(), out);
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportProducts(Specification<Products> filter, Sort sort, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<ProductExportRow> rows = productRepository.streamForExport(filter, sort)) {
+            if (format == ExportFormat.JSON) {
+                writeProductsJson(rows.iterator(), out);
+            } else {
+                writeProductsCsv(rows.iterator(), out);
+            }
+        }
+    }
+
+    private void writeOrdersCsv(Iterator<OrderExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        writeCsvLine(writer, "order_id", "created_at", "status", "user_id", "username", "email", "shipping_address",
+                "payment_mode", "total_amount", "product_id", "product_name", "quantity", "unit_price");
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+            writeCsvLine(writer, row.orderId(), row.createdAt(), row.status(), row.userId(), row.username(), row.email(),
+                    row.shippingAddress(), row.paymentMode(), row.totalAmount(), row.productId(), row.productName(),
+                    row.quantity(), row.price());
+        }
+        writer.flush();
+    }
+
+    // Lines arrive adjacent per order, so each order object is closed as soon as the next order id shows up
+    private void writeOrdersJson(Iterator<OrderExportRow> rows, OutputStream out) throws IOException {
+        try (JsonGenerator json = jsonGenerator(out)) {
+            json.writeStartArray();
+            Long currentOrder = null;
+            while (rows.hasNext()) {
+                OrderExportRow row = rows.next();
+                if (!row.orderId().equals(currentOrder)) {
+                    if (currentOrder != null) {
+                        json.writeEndArray();
+                        json.writeEndObject();
+                    }
+                    currentOrder = row.orderId();
+                    json.writeStartObject();
+                    json.writeNumberField("id", row.orderId());
+                    writeStringField(json, "createdAt", row.createdAt());
+                    writeStringField(json, "status", row.status());
+                    json.writeObjectFieldStart("user");
+                    json.writeNumberField("id", row.userId());
+                    json.writeStringField("username", row.username());
+                    json.writeStringField("email", row.email());
+                    json.writeEndObject();
+                    json.writeStringField("shippingAddress", row.shippingAddress());
+                    json.writeStringField("paymentMode", row.paymentMode());
+                    json.writeNumberField("totalAmount", row.totalAmount());
+                    json.writeArrayFieldStart("items");
+                }
+                if (row.itemId() != null) {
+                    json.writeStartObject();
+                    writeNumberField(json, "productId", row.productId());
+                    json.writeStringField("productName", row.productName());
+                    json.writeNumberField("quantity", row.quantity());
+                    json.writeNumberField("price", row.price());
+                    json.writeEndObject();
+                }
+            }
+            if (currentOrder != null) {
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+    }
+
+    private void writeProductsCsv(Iterator<ProductExportRow> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        // expected_stock lets a re-import tell an edited stock from one that merely went stale since the export
+        writeCsvLine(writer, "id", "name", "category", "price", "stock", "expected_stock", "description", "image_url");
+        while (rows.hasNext()) {
+            ProductExportRow row = rows.next();
+            writeCsvLine(writer, row.id(), row.name(), row.category(), row.price(), row.stock(), row.stock(),
+                    row.description(), row.imageUrl());
+        }
+        writer.flush();
+    }
+
+    private void writeProductsJson(Iterator<ProductExportRow> rows, OutputStream out) throws IOException {
+        try (JsonGenerator json = jsonGenerator(out)) {
+            json.writeStartArray();
+            while (rows.hasNext()) {
+                ProductExportRow row = rows.next();
+                json.writeStartObject();
+                json.writeNumberField("id", row.id());
+                json.writeStringField("name", row.name());
+                json.writeStringField("category", row.category());
+                json.writeNumberField("price", row.price());
+                json.writeNumberField("stock", row.stock());
+                json.writeStringField("description", row.description());
+                json.writeStringField("imageUrl", row.imageUrl());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+    }
+
+    // The servlet container owns the response stream; closing the generator only flushes it
+    private JsonGenerator jsonGenerator(OutputStream out) throws IOException {
+        return objectMapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static void writeStringField(JsonGenerator json, String name, Object value) throws IOException {
+        json.writeStringField(name, value == null ? null : value.toString());
+    }
+
+    private static void writeNumberField(JsonGenerator json, String name, Long value) throws IOException {
+        if (value == null) {
+            json.writeNullField(name);
+        } else {
+            json.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeCsvLine(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values[i];
+            if (value instanceof String text) {
+                writer.write(csvText(text));
+            } else {
+                writer.write(Objects.toString(value, ""));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting; user-entered text that a spreadsheet would evaluate as a formula is prefixed with a quote
+    private static String csvText(String text) {
+        if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,5 +1,8 @@
 package com.techouts.service.impl;
 
+import com.techouts.cache.ProductCatalogCache;
+import com.techouts.dto.OrderLineSummary;
+import com.techouts.dto.OrderSummary;
 import com.techouts.entity.CartItem;
 import com.techouts.entity.Order;
 import com.techouts.entity.OrderStatus;
@@ -11,18 +14,25 @@ import com.techouts.repository.OrderRepository;
 import com.techouts.repository.ProductRepository;
 import com.techouts.repository.UserRepository;
 import com.techouts.service.CartItemsService;
+import com.techouts.service.CheckoutRejectedException;
 import com.techouts.service.OrderService;
+import com.techouts.stats.DashboardStats;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 public class OrderServiceImpl implements OrderService {
-    private static final Set<String> PAYMENT_MODES = Set.of(
+    private static final List<String> PAYMENT_MODES = List.of(
             "Upi",
             "Debit Card",
             "Credit Card",
@@ -35,28 +45,59 @@ public class OrderServiceImpl implements OrderService {
     private final OrderRepository orderRepository;
     private final OrderItemsRepository orderItemsRepository;
     private final CartItemsService cartItemsService;
+    private final ProductCatalogCache catalogCache;
+    private final DashboardStats dashboardStats;
 
     public OrderServiceImpl(UserRepository userRepository,
                             ProductRepository productRepository,
                             OrderRepository orderRepository,
                             OrderItemsRepository orderItemsRepository,
-                            CartItemsService cartItemsService) {
+                            CartItemsService cartItemsService,
+                            ProductCatalogCache catalogCache,
+                            DashboardStats dashboardStats) {
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
         this.orderItemsRepository = orderItemsRepository;
         this.cartItemsService = cartItemsService;
+        this.catalogCache = catalogCache;
+        this.dashboardStats = dashboardStats;
     }
 
     @Override
-    @Transactional
-    public Order placeOrder(Long userId, Long directProductId, Integer directQuantity, String shippingAddress, String paymentMode) {
+    public List<String> getPaymentModes() {
+        return PAYMENT_MODES;
+    }
+
+    // Also checked by the controller before a checkout is queued, so a bad form is rejected without waiting
+    @Override
+    public void validateCheckout(String shippingAddress, String paymentMode) {
         if (shippingAddress == null || shippingAddress.isBlank()) {
             throw new IllegalArgumentException("Address is required");
         }
         if (!PAYMENT_MODES.contains(paymentMode)) {
             throw new IllegalArgumentException("Please select a valid payment mode");
         }
+    }
+
+    @Override
+    @Transactional
+    public Order placeOrder(Long userId, Long directProductId, Integer directQuantity, String shippingAddress, String paymentMode) {
+        return placeOrder(userId, directProductId, directQuantity, shippingAddress, paymentMode, null);
+    }
+
+    @Override
+    @Transactional
+    public Order placeOrder(Long userId, Long directProductId, Integer directQuantity, String shippingAddress, String paymentMode,
+                            String idempotencyKey) {
+        // A retried submission that already committed returns the original order instead of checking out again
+        if (idempotencyKey != null) {
+            Optional<Order> existing = orderRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+        }
+        validateCheckout(shippingAddress, paymentMode);
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -68,11 +109,10 @@ public class OrderServiceImpl implements OrderService {
             int quantity = (directQuantity == null || directQuantity < 1) ? 1 : directQuantity;
             Products product = productRepository.findById(directProductId)
                     .orElseThrow(() -> new IllegalArgumentException("Product not found"));
-            if (product.getStock() < quantity) {
-                throw new IllegalArgumentException("Out of stock");
+            if (productRepository.decrementStock(product.getId(), quantity) == 0) {
+                throw new CheckoutRejectedException(CheckoutRejectedException.Reason.OUT_OF_STOCK, "Out of stock");
             }
-            product.setStock(product.getStock() - quantity);
-            productRepository.save(product);
+            catalogCache.evictStock(product.getId(), product.getCategory());
 
             OrderItems oi = new OrderItems();
             oi.setProduct(product);
@@ -83,20 +123,30 @@ public class OrderServiceImpl implements OrderService {
         } else {
             List<CartItem> cartItems = cartItemsService.getCartItems(userId);
             if (cartItems.isEmpty()) {
-                throw new IllegalArgumentException("Cart is empty");
+                throw new CheckoutRejectedException(CheckoutRejectedException.Reason.EMPTY_CART, "Cart is empty");
             }
 
+            // Reserve in product id order so concurrent checkouts lock rows in the same sequence;
+            // a failed reservation rolls back the ones already applied
+            Map<Long, Integer> quantities = new TreeMap<>();
             for (CartItem cartItem : cartItems) {
-                Products product = cartItem.getProduct();
-                if (product.getStock() < cartItem.getQuantity()) {
-                    throw new IllegalArgumentException("Insufficient stock for " + product.getName());
-                }
+                quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+            }
+            List<Long> insufficient = productRepository.reserveStock(quantities);
+            if (!insufficient.isEmpty()) {
+                Long productId = insufficient.get(0);
+                String name = cartItems.stream()
+                        .filter(cartItem -> cartItem.getProduct().getId().equals(productId))
+                        .findFirst()
+                        .map(cartItem -> cartItem.getProduct().getName())
+                        .orElse("product " + productId);
+                throw new CheckoutRejectedException(CheckoutRejectedException.Reason.OUT_OF_STOCK,
+                        "Insufficient stock for " + name);
             }
 
             for (CartItem cartItem : cartItems) {
                 Products product = cartItem.getProduct();
-                product.setStock(product.getStock() - cartItem.getQuantity());
-                productRepository.save(product);
+                catalogCache.evictStock(product.getId(), product.getCategory());
 
                 OrderItems oi = new OrderItems();
                 oi.setProduct(product);
@@ -114,6 +164,7 @@ public class OrderServiceImpl implements OrderService {
         order.setShippingAddress(shippingAddress.trim());
         order.setPaymentMode(paymentMode);
         order.setStatus(OrderStatus.PLACED);
+        order.setIdempotencyKey(idempotencyKey);
         Order savedOrder = orderRepository.save(order);
 
         for (OrderItems item : items) {
@@ -124,12 +175,29 @@ public class OrderServiceImpl implements OrderService {
         if (directProductId == null) {
             cartItemsService.clearCart(userId);
         }
+        dashboardStats.orderPlaced(savedOrder);
         return savedOrder;
     }
 
+    // Two projection queries in one read-only transaction instead of the full Order -> items -> product graph;
+    // lines are fetched only for the orders on this page
     @Override
-    public List<Order> getOrderHistory(Long userId) {
-        return orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    @Transactional(readOnly = true)
+    public List<OrderSummary> getOrderHistory(Long userId, LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        List<OrderSummary> orders = afterCreatedAt != null && afterId != null
+                ? orderRepository.findSummariesByUserIdBefore(userId, afterCreatedAt, afterId, Limit.of(limit))
+                : orderRepository.findSummariesByUserId(userId, Limit.of(limit));
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        Map<Long, OrderSummary> byId = new HashMap<>();
+        for (OrderSummary order : orders) {
+            byId.put(order.id(), order);
+        }
+        for (OrderLineSummary line : orderRepository.findLineSummariesByOrderIds(byId.keySet())) {
+            byId.get(line.orderId()).items().add(line);
+        }
+        return orders;
     }
 
     @Override
@@ -138,6 +206,11 @@ public class OrderServiceImpl implements OrderService {
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
     }
 
+    @Override
+    public Optional<Order> findByIdempotencyKey(Long userId, String idempotencyKey) {
+        return orderRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+    }
+
     @Override
     public List<OrderItems> getOrderItems(Long orderId) {
         return orderItemsRepository.findByOrderId(orderId);
@@ -146,13 +219,47 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public void cancelOrder(Long userId, Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        // Locked, so of two concurrent cancels (the user's and an admin's) the second waits and then sees CANCELLED
+        // instead of releasing the stock a second time
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
 
         if (!order.getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("Order does not belong to user");
         }
 
+        cancelLocked(order);
+    }
+
+    @Override
+    @Transactional
+    public void updateStatus(Long orderId, OrderStatus status) {
+        // Locked like cancelOrder, so a customer's cancel either commits first and this sees CANCELLED, or waits
+        // and then sees the new status
+        Order order = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+        OrderStatus current = order.getStatus() == null ? OrderStatus.PLACED : order.getStatus();
+
+        if (current == OrderStatus.CANCELLED || current == OrderStatus.DELIVERED) {
+            throw new IllegalArgumentException("Cannot modify delivered/cancelled order");
+        }
+
+        if (status == OrderStatus.CANCELLED) {
+            cancelLocked(order);
+            return;
+        }
+
+        if (!isForwardTransition(current, status)) {
+            throw new IllegalArgumentException("Invalid status transition");
+        }
+
+        order.setStatus(status);
+        orderRepository.save(order);
+        dashboardStats.orderStatusChanged(order, current);
+    }
+
+    // The order must be locked by the caller
+    private void cancelLocked(Order order) {
         if (order.getStatus() == OrderStatus.CANCELLED) {
             throw new IllegalArgumentException("Order already cancelled");
         }
@@ -161,14 +268,34 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalArgumentException("Only placed or packed orders can be cancelled");
         }
 
-        List<OrderItems> items = orderItemsRepository.findByOrderId(orderId);
+        List<OrderItems> items = orderItemsRepository.findByOrderId(order.getId());
+        Map<Long, Integer> quantities = new TreeMap<>();
         for (OrderItems item : items) {
             Products product = item.getProduct();
-            product.setStock(product.getStock() + item.getQuantity());
-            productRepository.save(product);
+            quantities.merge(product.getId(), item.getQuantity(), Integer::sum);
+            catalogCache.evictStock(product.getId(), product.getCategory());
         }
+        productRepository.releaseStock(quantities);
 
+        OrderStatus previous = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
+        dashboardStats.orderStatusChanged(order, previous);
+    }
+
+    private static boolean isForwardTransition(OrderStatus current, OrderStatus next) {
+        if (next == OrderStatus.PLACED) {
+            return current == OrderStatus.PLACED;
+        }
+        if (next == OrderStatus.PACKED) {
+            return current == OrderStatus.PLACED || current == OrderStatus.PACKED;
+        }
+        if (next == OrderStatus.SHIPPED) {
+            return current == OrderStatus.PACKED || current == OrderStatus.SHIPPED;
+        }
+        if (next == OrderStatus.DELIVERED) {
+            return current == OrderStatus.SHIPPED || current == OrderStatus.DELIVERED;
+        }
+        return false;
     }
 }
@@ -0,0 +1,334 @@
+package com.techouts.service.impl;
+
+import com.techouts.cache.ProductCatalogCache;
+import com.techouts.dto.ProductImportResult;
+import com.techouts.entity.Products;
+import com.techouts.repository.ProductRepository;
+import com.techouts.repository.ProductStockRepository.LockedStock;
+import com.techouts.search.ProductSearchIndex;
+import com.techouts.service.ProductImportService;
+import com.techouts.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Reads the upload record by record and imports it in chunks of catalog.import.chunk-size rows: each chunk
+// is validated in parallel, then written with batched JDBC upserts in its own transaction, so a bad chunk
+// only rolls back itself. Caches and the search index are refreshed once after the last chunk; only the imported
+// ids are kept until then, and the products are read back a chunk at a time to index them.
+//
+// The CSV layout is the one /admin/products/export writes: a header naming the columns (any order, unknown
+// columns ignored), an optional id column (blank creates a product, a value updates that product).
+//
+// Stock moves with every sale, so an update only writes stock when the row changes it from its expected_stock,
+// and only if the product still has that stock; otherwise the row is rejected, as a bulk stock SET with
+// expectedStock is. Re-importing an older export therefore never puts sold units back. An update without an
+// expected_stock keeps the stored stock and is counted in stockIgnored, so the admin sees it was not applied.
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+    private static final Logger log = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+    private static final List<String> REQUIRED_COLUMNS =
+            List.of("name", "category", "price", "stock", "description", "image_url");
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ProductCatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public ProductImportServiceImpl(ProductRepository productRepository,
+                                    ProductService productService,
+                                    ProductCatalogCache catalogCache,
+                                    ProductSearchIndex searchIndex,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${catalog.import.chunk-size:500}") int chunkSize,
+                                    @Value("${catalog.import.max-reported-errors:200}") int maxReportedErrors) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public ProductImportResult importProducts(InputStream csv) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8)));
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        Map<String, Integer> columns = columns(header);
+
+        Tally tally = new Tally(maxReportedErrors);
+        // Ids of everything imported, for the search index update at the end
+        List<Long> imported = new ArrayList<>();
+        List<CsvRecord> chunk = new ArrayList<>(chunkSize);
+        try {
+            for (List<String> values = reader.next(); values != null; values = reader.next()) {
+                chunk.add(new CsvRecord(reader.getRecordLine(), values));
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, columns, tally, imported);
+                    chunk.clear();
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            // Malformed CSV: nothing after this point can be read reliably
+            tally.reject(reader.getRecordLine(), ex.getMessage() + "; the rest of the file was not read");
+        }
+        importChunk(chunk, columns, tally, imported);
+
+        if (!imported.isEmpty()) {
+            catalogCache.evictAll();
+            for (int from = 0; from < imported.size(); from += chunkSize) {
+                searchIndex.indexAll(productRepository.findAllById(
+                        imported.subList(from, Math.min(from + chunkSize, imported.size()))));
+            }
+        }
+        log.info("Product import: {} created, {} updated ({} without expected_stock), {} rejected",
+                tally.created, tally.updated, tally.stockIgnored, tally.rejected);
+        // Within a chunk, validation errors are found before database ones
+        tally.errors.sort(Comparator.comparingLong(ProductImportResult.RowError::line));
+        return new ProductImportResult(tally.created, tally.updated, tally.rejected, tally.stockIgnored,
+                List.copyOf(tally.errors));
+    }
+
+    private void importChunk(List<CsvRecord> chunk, Map<String, Integer> columns, Tally tally, List<Long> imported) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<ParsedRow> parsed = chunk.parallelStream().map(record -> parse(record, columns)).toList();
+
+        List<Products> products = new ArrayList<>();
+        Map<Products, Long> lines = new IdentityHashMap<>();
+        // Updates that change stock -> the stock the row expects the product to have now
+        Map<Products, Integer> expectedStocks = new IdentityHashMap<>();
+        // Inserts get their id during the upsert, so remember which rows are new beforehand
+        Set<Products> creates = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Products> stockIgnored = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ParsedRow row : parsed) {
+            if (row.error() != null) {
+                tally.reject(row.line(), row.error());
+            } else {
+                products.add(row.product());
+                lines.put(row.product(), row.line());
+                if (row.product().getId() == null) {
+                    creates.add(row.product());
+                } else if (row.expectedStock() != null) {
+                    expectedStocks.put(row.product(), row.expectedStock());
+                } else if (row.stockIgnored()) {
+                    stockIgnored.add(row.product());
+                }
+            }
+        }
+        if (products.isEmpty()) {
+            return;
+        }
+
+        List<Products> missing;
+        Map<Products, String> conflicts = new IdentityHashMap<>();
+        try {
+            missing = transactionTemplate.execute(status -> {
+                conflicts.clear();
+                return productRepository.upsertProducts(withoutStockConflicts(products, expectedStocks, conflicts));
+            });
+        } catch (DataAccessException ex) {
+            String reason = ex.getMostSpecificCause().getMessage();
+            log.warn("Product import chunk starting on line {} rolled back: {}", lines.get(products.get(0)), reason);
+            for (Products product : products) {
+                tally.reject(lines.get(product), "Not saved, the batch containing this row failed: " + reason);
+            }
+            return;
+        }
+
+        Set<Products> notFound = Collections.newSetFromMap(new IdentityHashMap<>());
+        notFound.addAll(missing);
+        for (Products product : products) {
+            if (conflicts.containsKey(product)) {
+                tally.reject(lines.get(product), conflicts.get(product));
+            } else if (notFound.contains(product)) {
+                tally.reject(lines.get(product), "Product " + product.getId() + " not found");
+            } else {
+                if (creates.contains(product)) {
+                    tally.created++;
+                } else {
+                    tally.updated++;
+                    if (stockIgnored.contains(product)) {
+                        tally.stockIgnored++;
+                    }
+                }
+                imported.add(product.getId());
+            }
+        }
+    }
+
+    // Locks the products the chunk updates, in the order checkouts lock them, and leaves out the rows whose product
+    // no longer has the stock they expect. Every updated row is locked, not just those changing stock: the update
+    // batch taking the rest later would lock out of id order.
+    private List<Products> withoutStockConflicts(List<Products> products, Map<Products, Integer> expectedStocks,
+                                                 Map<Products, String> conflicts) {
+        if (expectedStocks.isEmpty()) {
+            return products;
+        }
+        Map<Long, Integer> current = new HashMap<>();
+        for (LockedStock row : productRepository.lockStock(
+                products.stream().map(Products::getId).filter(Objects::nonNull).collect(Collectors.toSet()))) {
+            current.put(row.id(), row.stock());
+        }
+        List<Products> writable = new ArrayList<>(products.size());
+        for (Products product : products) {
+            Integer expected = expectedStocks.get(product);
+            Integer stock = current.get(product.getId());
+            if (expected != null && stock != null && !expected.equals(stock)) {
+                conflicts.put(product, "Stock is " + stock + ", expected " + expected);
+            } else {
+                writable.add(product);
+            }
+        }
+        return writable;
+    }
+
+    private ParsedRow parse(CsvRecord record, Map<String, Integer> columns) {
+        try {
+            String id = value(record, columns, "id");
+            String name = value(record, columns, "name");
+            String category = value(record, columns, "category");
+            BigDecimal price = parseDecimal(value(record, columns, "price"));
+            Integer stock = parseInteger(value(record, columns, "stock"), "Stock");
+            Integer expectedStock = parseInteger(value(record, columns, "expected_stock"), "Expected stock");
+            String description = value(record, columns, "description");
+            String imageUrl = value(record, columns, "image_url");
+            productService.validateProduct(name, category, price, stock, description, imageUrl);
+
+            Products product = new Products();
+            product.setId(id == null || id.isBlank() ? null : parseId(id));
+            product.setName(name.trim());
+            product.setCategory(category.trim());
+            product.setPrice(price);
+            product.setStock(stock);
+            product.setDescription(description.trim());
+            product.setImageUrl(imageUrl.trim());
+            // Without an expected stock there is no telling an edit from a sale since the export
+            boolean stockIgnored = product.getId() != null && expectedStock == null && stock != null;
+            if (product.getId() != null && (expectedStock == null || expectedStock.equals(stock))) {
+                // The row does not change stock, so the update keeps the stored one
+                product.setStock(null);
+                expectedStock = null;
+            }
+            return new ParsedRow(record.line(), product, expectedStock, stockIgnored, null);
+        } catch (IllegalArgumentException ex) {
+            return new ParsedRow(record.line(), null, null, false, ex.getMessage());
+        }
+    }
+
+    private static Map<String, Integer> columns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+            // Excel prepends a byte order mark when saving as UTF-8 CSV
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            columns.putIfAbsent(name, i);
+        }
+        List<String> absent = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!absent.isEmpty()) {
+            throw new IllegalArgumentException("Missing CSV columns: " + String.join(", ", absent));
+        }
+        return columns;
+    }
+
+    private static String value(CsvRecord record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.values().size()) {
+            return null;
+        }
+        String value = record.values().get(index);
+        // Undo the formula guard the export adds to text cells
+        if (value.length() > 1 && value.charAt(0) == '\'' && "=+-@\t\r".indexOf(value.charAt(1)) >= 0) {
+            return value.substring(1);
+        }
+        return value;
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Id must be a whole number: " + value);
+        }
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Price must be a number: " + value);
+        }
+    }
+
+    private static Integer parseInteger(String value, String label) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(label + " must be a whole number: " + value);
+        }
+    }
+
+    private record CsvRecord(long line, List<String> values) {
+    }
+
+    private record ParsedRow(long line, Products product, Integer expectedStock, boolean stockIgnored, String error) {
+    }
+
+    private static final class Tally {
+        final int maxErrors;
+        final List<ProductImportResult.RowError> errors = new ArrayList<>();
+        int created;
+        int updated;
+        int rejected;
+        int stockIgnored;
+
+        Tally(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ProductImportResult.RowError(line, message));
+            }
+        }
+    }
+}
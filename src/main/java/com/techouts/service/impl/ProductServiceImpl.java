@@ -1,37 +1,129 @@
 package com.techouts.service.impl;
 
+import com.techouts.cache.ProductCatalogCache;
+import com.techouts.dto.ProductDetails;
+import com.techouts.dto.ProductSummary;
 import com.techouts.entity.Products;
 import com.techouts.repository.ProductRepository;
+import com.techouts.search.ProductSearchIndex;
 import com.techouts.service.ProductService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductCatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final int storefrontLimit;
+    private final int maxWindow;
 
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, ProductCatalogCache catalogCache, ProductSearchIndex searchIndex,
+                              @Value("${catalog.search.storefront-limit:200}") int storefrontLimit,
+                              @Value("${catalog.search.max-window:1000}") int maxWindow) {
         this.productRepository = productRepository;
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.storefrontLimit = storefrontLimit;
+        this.maxWindow = maxWindow;
     }
 
+    // No service-level transaction: a cache hit should not borrow a connection, and the projection queries
+    // already run in Spring Data's read-only transaction
     @Override
-    public List<Products> getProducts(String category) {
+    public List<ProductSummary> getProducts(String category) {
         if (category == null || category.isBlank() || "All".equalsIgnoreCase(category)) {
-            return productRepository.findAll();
+            return catalogCache.getCategory(ProductCatalogCache.ALL_CATEGORIES, key -> productRepository.findAllSummaries());
         }
-        return productRepository.findByCategory(category);
+        return catalogCache.getCategory(category, productRepository::findSummariesByCategory);
     }
 
     @Override
-    public Products getById(Long productId) {
-        return productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+    public ProductDetails getById(Long productId) {
+        return catalogCache.getProduct(productId, id -> productRepository.findDetailsById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found")));
     }
 
     @Override
-    public List<Products> searchProductsByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
+    public Page<ProductSummary> searchProductsByName(String name) {
+        ProductSearchIndex.Hits hits = searchIndex.search(name, 0, storefrontLimit);
+        List<ProductSummary> products = hits.ids().isEmpty()
+                ? List.of()
+                : inOrder(hits.ids(), productRepository.findSummariesByIdIn(hits.ids()), ProductSummary::id);
+        return new PageImpl<>(products, PageRequest.of(0, storefrontLimit), hits.total());
+    }
+
+    @Override
+    public Page<Products> searchProducts(String query, int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Invalid page request");
+        }
+        if ((long) (page + 1) * size > maxWindow) {
+            throw new IllegalArgumentException("Only the first " + maxWindow + " results can be paged");
+        }
+        ProductSearchIndex.Hits hits = searchIndex.search(query, page * size, size);
+        List<Products> products = hits.ids().isEmpty() ? List.of() : productRepository.findAllById(hits.ids());
+        // Totals stop at the window, so totalPages only counts pages that can be requested
+        return new PageImpl<>(inOrder(hits.ids(), products, Products::getId), PageRequest.of(page, size),
+                Math.min(hits.total(), maxWindow));
+    }
+
+    @Override
+    public List<String> getCategories() {
+        return catalogCache.getCategories(productRepository::findDistinctCategories);
+    }
+
+    // Lengths and price precision follow the products column definitions
+    @Override
+    public void validateProduct(String name, String category, BigDecimal price, Integer stock, String description, String imageUrl) {
+        if (name == null || name.trim().length() < 2 || name.trim().length() > 255) {
+            throw new IllegalArgumentException("Product name must be between 2 and 255 characters");
+        }
+        if (category == null || category.trim().isEmpty() || category.trim().length() > 255) {
+            throw new IllegalArgumentException("Category is required and must be at most 255 characters");
+        }
+        if (price == null || price.signum() < 0) {
+            throw new IllegalArgumentException("Price must be 0 or greater");
+        }
+        BigDecimal significant = price.stripTrailingZeros();
+        if (significant.scale() > 2 || significant.precision() - significant.scale() > 10) {
+            throw new IllegalArgumentException("Price must have at most 10 digits before and 2 after the decimal point");
+        }
+        if (stock == null || stock < 0) {
+            throw new IllegalArgumentException("Stock must be 0 or greater");
+        }
+        if (description == null || description.trim().length() < 5 || description.trim().length() > 1500) {
+            throw new IllegalArgumentException("Description must be between 5 and 1500 characters");
+        }
+        if (imageUrl == null || imageUrl.trim().isEmpty() || imageUrl.trim().length() > 250) {
+            throw new IllegalArgumentException("Image URL is required and must be at most 250 characters");
+        }
+    }
+
+    // Loading by id does not preserve the ranking, so re-order by the index result
+    private static <T> List<T> inOrder(List<Long> ids, List<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T row : rows) {
+            byId.put(idOf.apply(row), row);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
     }
 }
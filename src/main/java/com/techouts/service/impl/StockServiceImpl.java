@@ -0,0 +1,121 @@
+package com.techouts.service.impl;
+
+import com.techouts.cache.ProductCatalogCache;
+import com.techouts.dto.BulkStockRequest;
+import com.techouts.dto.StockAdjustment;
+import com.techouts.dto.StockAdjustmentResult;
+import com.techouts.dto.StockAdjustmentResult.Status;
+import com.techouts.repository.ProductRepository;
+import com.techouts.repository.ProductStockRepository.LockedStock;
+import com.techouts.service.StockService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Two statements per batch whatever its size: lock every row (in id order, like checkout's reserveStock,
+// so the two never deadlock), then write all new levels at once. New levels are computed from the locked
+// values, so ADD never loses a concurrent order's decrement; a checkout touching these rows waits for the commit.
+@Service
+public class StockServiceImpl implements StockService {
+
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache catalogCache;
+    private final int maxItems;
+
+    public StockServiceImpl(ProductRepository productRepository,
+                            ProductCatalogCache catalogCache,
+                            @Value("${inventory.bulk-stock.max-items:10000}") int maxItems) {
+        this.productRepository = productRepository;
+        this.catalogCache = catalogCache;
+        this.maxItems = maxItems;
+    }
+
+    @Override
+    @Transactional
+    public List<StockAdjustmentResult> adjustStock(BulkStockRequest.Mode mode, List<StockAdjustment> adjustments) {
+        if (mode == null) {
+            throw new IllegalArgumentException("mode must be SET or ADD");
+        }
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new IllegalArgumentException("No stock adjustments given");
+        }
+        if (adjustments.size() > maxItems) {
+            throw new IllegalArgumentException("At most " + maxItems + " stock adjustments per request");
+        }
+        Set<Long> requested = new TreeSet<>();
+        for (StockAdjustment adjustment : adjustments) {
+            if (adjustment != null && adjustment.productId() != null && !requested.add(adjustment.productId())) {
+                throw new IllegalArgumentException("Product " + adjustment.productId() + " is listed more than once");
+            }
+        }
+
+        Map<Long, LockedStock> current = new HashMap<>();
+        for (LockedStock row : productRepository.lockStock(requested)) {
+            current.put(row.id(), row);
+        }
+
+        List<StockAdjustmentResult> results = new ArrayList<>(adjustments.size());
+        Map<Long, Integer> changes = new LinkedHashMap<>();
+        Set<String> categories = new HashSet<>();
+        for (StockAdjustment adjustment : adjustments) {
+            StockAdjustmentResult result = apply(mode, adjustment, current);
+            if (result.status() == Status.UPDATED) {
+                changes.put(result.productId(), result.stock());
+                categories.add(current.get(result.productId()).category());
+            }
+            results.add(result);
+        }
+        if (!changes.isEmpty()) {
+            productRepository.setStock(changes);
+            catalogCache.evictStock(changes.keySet(), categories);
+        }
+        return results;
+    }
+
+    private static StockAdjustmentResult apply(BulkStockRequest.Mode mode, StockAdjustment adjustment,
+                                               Map<Long, LockedStock> current) {
+        if (adjustment == null || adjustment.productId() == null || adjustment.quantity() == null) {
+            return new StockAdjustmentResult(adjustment == null ? null : adjustment.productId(), Status.INVALID, null,
+                    "productId and quantity are required");
+        }
+        Long productId = adjustment.productId();
+        LockedStock row = current.get(productId);
+        if (row == null) {
+            return new StockAdjustmentResult(productId, Status.NOT_FOUND, null, "Product not found");
+        }
+        int stock;
+        if (mode == BulkStockRequest.Mode.SET) {
+            if (adjustment.quantity() < 0) {
+                return new StockAdjustmentResult(productId, Status.INVALID, row.stock(), "Stock must be 0 or greater");
+            }
+            if (adjustment.expectedStock() != null && adjustment.expectedStock() != row.stock()) {
+                return new StockAdjustmentResult(productId, Status.CONFLICT, row.stock(),
+                        "Stock is " + row.stock() + ", expected " + adjustment.expectedStock());
+            }
+            stock = adjustment.quantity();
+        } else {
+            long adjusted = (long) row.stock() + adjustment.quantity();
+            if (adjusted < 0) {
+                return new StockAdjustmentResult(productId, Status.INSUFFICIENT_STOCK, row.stock(),
+                        "Only " + row.stock() + " in stock");
+            }
+            if (adjusted > Integer.MAX_VALUE) {
+                return new StockAdjustmentResult(productId, Status.INVALID, row.stock(), "Stock would overflow");
+            }
+            stock = (int) adjusted;
+        }
+        if (stock == row.stock()) {
+            return new StockAdjustmentResult(productId, Status.UNCHANGED, stock, null);
+        }
+        return new StockAdjustmentResult(productId, Status.UPDATED, stock, null);
+    }
+}
@@ -1,29 +1,30 @@
 package com.techouts.service.impl;
 
+import com.techouts.cache.CartIdCache;
 import com.techouts.entity.Cart;
 import com.techouts.entity.Gender;
 import com.techouts.entity.User;
 import com.techouts.entity.UserRole;
+import com.techouts.login.LoginRateLimiter;
+import com.techouts.login.PasswordHashing;
+import com.techouts.media.ProfilePictures;
+import com.techouts.metrics.LoginMetrics;
 import com.techouts.repository.CartRepository;
 import com.techouts.repository.UserRepository;
+import com.techouts.service.LoginRejectedException;
 import com.techouts.service.UserService;
+import com.techouts.stats.DashboardStats;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 public class UserServiceImpl implements UserService {
@@ -31,11 +32,26 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CartIdCache cartIdCache;
+    private final DashboardStats dashboardStats;
+    private final ProfilePictures profilePictures;
+    private final PasswordHashing passwordHashing;
+    private final LoginRateLimiter loginRateLimiter;
+    private final LoginMetrics loginMetrics;
 
-    public UserServiceImpl(UserRepository userRepository, CartRepository cartRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, CartRepository cartRepository, PasswordEncoder passwordEncoder,
+                           CartIdCache cartIdCache, DashboardStats dashboardStats, ProfilePictures profilePictures,
+                           PasswordHashing passwordHashing, LoginRateLimiter loginRateLimiter,
+                           LoginMetrics loginMetrics) {
         this.userRepository = userRepository;
         this.cartRepository = cartRepository;
         this.passwordEncoder = passwordEncoder;
+        this.cartIdCache = cartIdCache;
+        this.dashboardStats = dashboardStats;
+        this.profilePictures = profilePictures;
+        this.passwordHashing = passwordHashing;
+        this.loginRateLimiter = loginRateLimiter;
+        this.loginMetrics = loginMetrics;
     }
 
     @Override
@@ -73,12 +89,13 @@ public class UserServiceImpl implements UserService {
 
         Cart cart = new Cart();
         cart.setUser(saved);
-        cartRepository.save(cart);
+        cartIdCache.put(saved.getId(), cartRepository.save(cart).getId());
+        dashboardStats.userAdded(saved.getRole());
         return saved;
     }
 
     @Override
-    public Optional<User> login(String identifier, String rawPassword) {
+    public Optional<User> login(String identifier, String rawPassword, String clientAddress) {
         if (rawPassword == null || rawPassword.isBlank()) {
             return Optional.empty();
         }
@@ -88,6 +105,13 @@ public class UserServiceImpl implements UserService {
             return Optional.empty();
         }
 
+        try {
+            loginRateLimiter.checkAllowed(normalizedIdentifier, clientAddress);
+        } catch (LoginRejectedException ex) {
+            loginMetrics.record(LoginMetrics.Outcome.TOO_MANY_ATTEMPTS);
+            throw ex;
+        }
+
         Optional<User> userOptional;
         if (normalizedIdentifier.contains("@")) {
             // Login with email
@@ -100,8 +124,27 @@ public class UserServiceImpl implements UserService {
             userOptional = userRepository.findByUsername(normalizeUsername(normalizedIdentifier));
         }
 
-        return userOptional
-                .filter(user -> passwordEncoder.matches(rawPassword, user.getPassword()));
+        // Unknown identifiers are hashed too, so they fail as slowly as wrong passwords
+        String passwordHash = userOptional.map(User::getPassword).orElse(null);
+        boolean matched;
+        try {
+            matched = passwordHashing.matches(rawPassword, passwordHash);
+        } catch (LoginRejectedException ex) {
+            loginMetrics.record(LoginMetrics.Outcome.BUSY);
+            throw ex;
+        }
+        if (!matched) {
+            loginRateLimiter.failed(normalizedIdentifier);
+            loginMetrics.record(LoginMetrics.Outcome.FAILED);
+            return Optional.empty();
+        }
+
+        User user = userOptional.get();
+        loginRateLimiter.succeeded(normalizedIdentifier);
+        loginMetrics.record(LoginMetrics.Outcome.SUCCEEDED);
+        passwordHashing.upgradeIfNeeded(rawPassword, passwordHash,
+                newHash -> userRepository.replacePasswordHash(user.getId(), passwordHash, newHash));
+        return Optional.of(user);
     }
 
     @Override
@@ -110,6 +153,16 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
     }
 
+    // User does not map its cart (an inverse one-to-one cannot be lazy and would load with every user), so the
+    // cart goes explicitly
+    @Override
+    @Transactional
+    public void deleteUser(User user) {
+        cartRepository.deleteItemsByUserId(user.getId());
+        cartRepository.deleteByUserId(user.getId());
+        userRepository.delete(user);
+    }
+
     @Override
     @Transactional
     public void updateProfile(Long id, String name, String username, String email, String phone, String address, String gender, String dateOfBirth, MultipartFile profilePictureFile) {
@@ -186,8 +239,10 @@ public class UserServiceImpl implements UserService {
         // Handle profile picture upload
         if (profilePictureFile != null && !profilePictureFile.isEmpty()) {
             try {
-                String profilePicturePath = saveProfilePicture(profilePictureFile);
+                String previousPicture = user.getProfilePicture();
+                String profilePicturePath = profilePictures.store(profilePictureFile);
                 user.setProfilePicture(profilePicturePath);
+                profilePictures.release(previousPicture);
             } catch (IOException e) {
                 throw new IllegalArgumentException("Failed to save profile picture: " + e.getMessage());
             }
@@ -248,36 +303,4 @@ public class UserServiceImpl implements UserService {
             throw new IllegalArgumentException("Password must be at least 8 characters");
         }
     }
-    
-    private String saveProfilePicture(MultipartFile file) throws IOException {
-        // Validate file size (max 5MB)
-        if (file.getSize() > 5 * 1024 * 1024) {
-            throw new IllegalArgumentException("Profile picture size should be less than 5MB");
-        }
-        
-        // Validate file type
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new IllegalArgumentException("Please select a valid image file");
-        }
-        
-        // Create upload directory if it doesn't exist
-        String uploadDir = "uploads/profile-pictures/";
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-        
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = originalFilename != null ? 
-            originalFilename.substring(originalFilename.lastIndexOf(".")) : ".jpg";
-        String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-        
-        // Save file
-        Path filePath = uploadPath.resolve(uniqueFilename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        return "/uploads/profile-pictures/" + uniqueFilename;
-    }
 }
@@ -0,0 +1,309 @@
+package com.techouts.stats;
+
+import com.techouts.dto.DailyTotal;
+import com.techouts.dto.RoleCount;
+import com.techouts.dto.StatusTotal;
+import com.techouts.entity.Order;
+import com.techouts.entity.OrderStatus;
+import com.techouts.entity.UserRole;
+import com.techouts.repository.OrderRepository;
+import com.techouts.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Admin dashboard aggregates kept in memory: order count and amount per status, revenue per day for the last
+// dashboard.revenue-days days, users per role. Writers report each change after it commits, so reading the
+// dashboard never touches order history. A periodic reconciliation replaces the counters with SQL aggregates,
+// which also folds in changes made by other instances or directly in the database.
+@Component
+public class DashboardStats {
+    private static final Logger log = LoggerFactory.getLogger(DashboardStats.class);
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final int revenueDays;
+    // Not synchronized: request threads may be virtual and must not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+    // Held shared by every transaction that reports a change, from just before its commit until it has applied
+    // it, and exclusively by a reconciliation while it opens its snapshot and starts collecting changes. So a
+    // change either committed before the snapshot and is in it, or commits after and is replayed; never both.
+    private final ReentrantReadWriteLock commitGate = new ReentrantReadWriteLock();
+
+    private Counts counts = new Counts();
+    // Changes committed after the running reconciliation's snapshot; replayed on top of its result so none are
+    // lost. Guarded by lock.
+    private List<Consumer<Counts>> pending;
+    private LocalDateTime reconciledAt;
+
+    public DashboardStats(OrderRepository orderRepository,
+                          UserRepository userRepository,
+                          JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${dashboard.revenue-days:30}") int revenueDays) {
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // The reconciliation queries read one snapshot, so the status totals, daily revenue and role counts agree
+        // with each other even while orders and users change underneath
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+        this.revenueDays = revenueDays;
+    }
+
+    public void orderPlaced(Order order) {
+        OrderStatus status = statusOf(order.getStatus());
+        BigDecimal amount = order.getTotalAmount();
+        LocalDate day = order.getCreatedAt().toLocalDate();
+        afterCommit(c -> {
+            c.status(status).add(1, amount);
+            if (status != OrderStatus.CANCELLED) {
+                c.day(day).add(1, amount);
+            }
+        });
+    }
+
+    public void orderStatusChanged(Order order, OrderStatus previous) {
+        OrderStatus from = statusOf(previous);
+        OrderStatus to = statusOf(order.getStatus());
+        if (from == to) {
+            return;
+        }
+        BigDecimal amount = order.getTotalAmount();
+        LocalDate day = order.getCreatedAt().toLocalDate();
+        afterCommit(c -> {
+            c.status(from).add(-1, amount.negate());
+            c.status(to).add(1, amount);
+            if (to == OrderStatus.CANCELLED) {
+                c.day(day).add(-1, amount.negate());
+            } else if (from == OrderStatus.CANCELLED) {
+                c.day(day).add(1, amount);
+            }
+        });
+    }
+
+    public void userAdded(UserRole role) {
+        afterCommit(c -> c.roles.merge(roleOf(role), 1L, Long::sum));
+    }
+
+    public void userRemoved(UserRole role) {
+        afterCommit(c -> c.roles.merge(roleOf(role), -1L, Long::sum));
+    }
+
+    public void userRoleChanged(UserRole previous, UserRole role) {
+        if (roleOf(previous) == roleOf(role)) {
+            return;
+        }
+        afterCommit(c -> {
+            c.roles.merge(roleOf(previous), -1L, Long::sum);
+            c.roles.merge(roleOf(role), 1L, Long::sum);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.reconcile-interval:PT10M}",
+            initialDelayString = "${dashboard.reconcile-interval:PT10M}")
+    public void reconcile() {
+        if (!reconcileLock.tryLock()) {
+            return;
+        }
+        try {
+            Counts fresh = new Counts();
+            LocalDateTime since = LocalDate.now().minusDays(revenueDays - 1L).atStartOfDay();
+            try {
+                snapshotTransaction.executeWithoutResult(status -> {
+                    commitGate.writeLock().lock();
+                    try {
+                        // The first statement fixes the REPEATABLE READ snapshot
+                        jdbcTemplate.queryForObject("select 1", Integer.class);
+                        setPending(new ArrayList<>());
+                    } finally {
+                        commitGate.writeLock().unlock();
+                    }
+                    for (StatusTotal total : orderRepository.totalsByStatus()) {
+                        fresh.status(statusOf(total.status())).add(total.orders(), total.amount());
+                    }
+                    for (DailyTotal total : orderRepository.revenueByDaySince(since)) {
+                        fresh.day(total.day()).add(total.orders(), total.amount());
+                    }
+                    for (RoleCount count : userRepository.countByRoleGrouped()) {
+                        fresh.roles.merge(roleOf(count.role()), count.users(), Long::sum);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                setPending(null);
+                throw ex;
+            }
+
+            lock.lock();
+            try {
+                pending.forEach(change -> change.accept(fresh));
+                long drift = fresh.orders() - counts.orders();
+                if (reconciledAt != null && drift != 0) {
+                    log.info("Dashboard order count was off by {}; reconciled with the database", drift);
+                }
+                counts = fresh;
+                pending = null;
+                reconciledAt = LocalDateTime.now();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void setPending(List<Consumer<Counts>> changes) {
+        lock.lock();
+        try {
+            pending = changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Snapshot snapshot() {
+        LocalDate today = LocalDate.now();
+        lock.lock();
+        try {
+            List<StatusTotal> statuses = new ArrayList<>();
+            BigDecimal revenue = BigDecimal.ZERO;
+            for (OrderStatus status : OrderStatus.values()) {
+                Totals totals = counts.byStatus.getOrDefault(status, new Totals());
+                statuses.add(new StatusTotal(status, totals.count, totals.amount));
+                if (status != OrderStatus.CANCELLED) {
+                    revenue = revenue.add(totals.amount);
+                }
+            }
+            List<DailyTotal> days = new ArrayList<>();
+            for (int i = 0; i < revenueDays; i++) {
+                LocalDate day = today.minusDays(i);
+                Totals totals = counts.byDay.getOrDefault(day, new Totals());
+                days.add(new DailyTotal(day, totals.count, totals.amount));
+            }
+            // Days that slid out of the window are not needed any more
+            counts.byDay.headMap(today.minusDays(revenueDays - 1L), false).clear();
+            List<RoleCount> roles = new ArrayList<>();
+            long users = 0;
+            for (UserRole role : UserRole.values()) {
+                long count = counts.roles.getOrDefault(role, 0L);
+                roles.add(new RoleCount(role, count));
+                users += count;
+            }
+            return new Snapshot(counts.orders(), revenue, users, statuses, days, roles, reconciledAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A change reported outside a transaction has already committed, so it cannot pass the commit gate; it is
+    // applied and replayed as is, and the next reconciliation corrects it should the snapshot already hold it
+    private void afterCommit(Consumer<Counts> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean gated;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    commitGate.readLock().lock();
+                    gated = true;
+                }
+
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (gated) {
+                        commitGate.readLock().unlock();
+                    }
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<Counts> change) {
+        lock.lock();
+        try {
+            change.accept(counts);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Rows written before the status and role backfills ran have no value; they behave as the defaults
+    private static OrderStatus statusOf(OrderStatus status) {
+        return status == null ? OrderStatus.PLACED : status;
+    }
+
+    private static UserRole roleOf(UserRole role) {
+        return role == null ? UserRole.ROLE_USER : role;
+    }
+
+    public record Snapshot(long orders, BigDecimal revenue, long users, List<StatusTotal> statuses,
+                           List<DailyTotal> days, List<RoleCount> roles, LocalDateTime reconciledAt) {
+    }
+
+    private static final class Counts {
+        final Map<OrderStatus, Totals> byStatus = new EnumMap<>(OrderStatus.class);
+        final NavigableMap<LocalDate, Totals> byDay = new TreeMap<>();
+        final Map<UserRole, Long> roles = new EnumMap<>(UserRole.class);
+
+        Totals status(OrderStatus status) {
+            return byStatus.computeIfAbsent(status, key -> new Totals());
+        }
+
+        Totals day(LocalDate day) {
+            return byDay.computeIfAbsent(day, key -> new Totals());
+        }
+
+        long orders() {
+            long orders = 0;
+            for (Totals totals : byStatus.values()) {
+                orders += totals.count;
+            }
+            return orders;
+        }
+    }
+
+    private static final class Totals {
+        long count;
+        BigDecimal amount = BigDecimal.ZERO;
+
+        void add(long count, BigDecimal amount) {
+            this.count += count;
+            this.amount = this.amount.add(amount);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.techouts;
+
+import com.techouts.entity.Cart;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import com.techouts.entity.UserRole;
+import com.techouts.repository.CartRepository;
+import com.techouts.repository.ProductRepository;
+import com.techouts.repository.UserRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Boots the application against a PostgreSQL started once per test JVM, so the native upserts, row locks and
+// sequences run as they do in production. Test classes share the database and, with the same properties, the
+// application context: every helper here creates uniquely named rows, and tests only assert on rows they created.
+// SQL budgets are enforced, so a request a test drives through MockMvc fails once it goes over its route's budget.
+// The properties are a @TestPropertySource so that a subclass can still pick its own web environment.
+@SpringBootTest
+@TestPropertySource(properties = {
+        "sql.monitor.enforce=true",
+        "sql.monitor.budgets=/admin/orders=3,/checkout=4,/checkout/place=3,/checkout/pending=3,/checkout/status=3,"
+                + "/order-success=4,/orders=4",
+        "blob-store.local.root=target/test-blobs"
+})
+@AutoConfigureMockMvc
+public abstract class PostgresIntegrationTest {
+    // Never matched by a test; users are only ever put in sessions directly
+    private static final String PASSWORD_HASH = "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z2xV3m5s5b5G5Xm8xwH7GQ5K";
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected CartRepository cartRepository;
+
+    @Autowired
+    protected ProductRepository productRepository;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    // A user with an empty cart
+    protected User createUser() {
+        return createUser(UserRole.ROLE_USER);
+    }
+
+    protected User createAdmin() {
+        return createUser(UserRole.ROLE_ADMIN);
+    }
+
+    // A session as UserController leaves it after a successful login
+    protected MockHttpSession sessionOf(User user) {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("USER_ID", user.getId());
+        session.setAttribute("IS_ADMIN", user.getRole() == UserRole.ROLE_ADMIN);
+        return session;
+    }
+
+    private User createUser(UserRole role) {
+        int n = SEQUENCE.incrementAndGet();
+        User user = new User();
+        user.setName("Test User " + n);
+        user.setUsername("test_user_" + n);
+        user.setEmail("test.user." + n + "@example.com");
+        user.setPassword(PASSWORD_HASH);
+        user.setRole(role);
+        user.setAddress(n + " Test Street");
+        User saved = userRepository.save(user);
+        Cart cart = new Cart();
+        cart.setUser(saved);
+        cartRepository.save(cart);
+        return saved;
+    }
+
+    protected Products createProduct(int stock) {
+        int n = SEQUENCE.incrementAndGet();
+        Products product = new Products();
+        product.setName("Test Product " + n);
+        product.setCategory("Test Category");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(stock);
+        product.setDescription("Test product " + n);
+        product.setImageUrl("/placeholder-product.svg");
+        return productRepository.save(product);
+    }
+
+    protected int stockOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+
+    // Runs every task on its own thread, all released at once, and returns their results in task order. A task that
+    // throws fails the call with its exception, wrapped in an ExecutionException.
+    protected static <T> List<T> runConcurrently(List<? extends Callable<T>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        try {
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ex) {
+                    // The data directory is temporary either way
+                }
+            }));
+            return postgres;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not start embedded PostgreSQL", ex);
+        }
+    }
+}
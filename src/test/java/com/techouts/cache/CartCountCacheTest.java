@@ -0,0 +1,43 @@
+package com.techouts.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A re-sync whose read overlaps a cart change must not put back a total that misses that change
+class CartCountCacheTest {
+    private static final Long USER = 1L;
+
+    private final CartCountCache cache = new CartCountCache(100, Duration.ofMinutes(5));
+
+    @Test
+    void resyncReplacesAnUnchangedEntry() {
+        cache.get(USER, id -> 3);
+
+        assertThat(cache.resync(USER, () -> 5, total -> total)).isEqualTo(5);
+
+        assertThat(cache.get(USER, id -> -1)).isEqualTo(5);
+    }
+
+    @Test
+    void resyncKeepsAnEntryAdjustedDuringTheRead() {
+        cache.get(USER, id -> 3);
+
+        // The read saw 3; an add of 2 committed and adjusted the entry before the re-sync landed
+        cache.resync(USER, () -> {
+            cache.adjust(USER, 2);
+            return 3;
+        }, total -> total);
+
+        assertThat(cache.get(USER, id -> -1)).isEqualTo(5);
+    }
+
+    @Test
+    void resyncLeavesAnAbsentEntryToTheLoader() {
+        cache.resync(USER, () -> 3, total -> total);
+
+        assertThat(cache.get(USER, id -> 4)).isEqualTo(4);
+    }
+}
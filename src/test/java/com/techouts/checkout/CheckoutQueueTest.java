@@ -0,0 +1,81 @@
+package com.techouts.checkout;
+
+import com.techouts.entity.Order;
+import com.techouts.metrics.CheckoutMetrics;
+import com.techouts.service.OrderService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// A slow checkout holds back only later checkouts of the same products; everything else keeps flowing
+class CheckoutQueueTest {
+    private static final Long SLOW_USER = 1L;
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final CountDownLatch releaseSlow = new CountDownLatch(1);
+    private final List<Long> placedFor = new CopyOnWriteArrayList<>();
+    private CheckoutQueue checkoutQueue;
+
+    @BeforeEach
+    void setUp() {
+        when(orderService.placeOrder(anyLong(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            Long userId = invocation.getArgument(0);
+            if (userId.equals(SLOW_USER)) {
+                assertThat(releaseSlow.await(10, TimeUnit.SECONDS)).isTrue();
+            }
+            placedFor.add(userId);
+            Order order = new Order();
+            order.setId(userId);
+            return order;
+        });
+        checkoutQueue = new CheckoutQueue(orderService, new CheckoutMetrics(new SimpleMeterRegistry()),
+                100, 32, 4, Duration.ofMinutes(5));
+        checkoutQueue.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        releaseSlow.countDown();
+        checkoutQueue.stop();
+    }
+
+    @Test
+    void slowCheckoutDoesNotStallOtherProducts() {
+        CheckoutTicket slow = submit(SLOW_USER, 10L);
+        await().atMost(Duration.ofSeconds(5)).until(() -> slow.getStatus() == CheckoutStatus.PROCESSING);
+
+        CheckoutTicket sameProduct = submit(2L, 10L, 11L);
+        CheckoutTicket otherProduct = submit(3L, 20L);
+        // Shares a product only with the held-back checkout, so it waits behind it too
+        CheckoutTicket behindWaiting = submit(4L, 11L);
+
+        await().atMost(Duration.ofSeconds(5)).until(otherProduct::isDone);
+        assertThat(otherProduct.getStatus()).isEqualTo(CheckoutStatus.PLACED);
+        assertThat(sameProduct.isDone()).isFalse();
+        assertThat(behindWaiting.isDone()).isFalse();
+
+        releaseSlow.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> sameProduct.isDone() && behindWaiting.isDone());
+        assertThat(placedFor).containsExactly(3L, SLOW_USER, 2L, 4L);
+    }
+
+    private CheckoutTicket submit(Long userId, Long... productIds) {
+        return checkoutQueue.submit(userId, "checkout-key-" + userId, null, null, "1 Test Street", "Upi",
+                Set.of(productIds)).orElseThrow();
+    }
+}
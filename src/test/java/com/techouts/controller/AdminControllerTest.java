@@ -0,0 +1,141 @@
+package com.techouts.controller;
+
+import com.techouts.PostgresIntegrationTest;
+import com.techouts.entity.Order;
+import com.techouts.entity.OrderStatus;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import com.techouts.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+// /admin/orders lists a page of orders from several customers within its SQL budget (sql.monitor.budgets in
+// PostgresIntegrationTest); loading each order's user or cart separately would go over it and fail the request
+class AdminControllerTest extends PostgresIntegrationTest {
+    private static final int CUSTOMERS = 6;
+    private static final int ORDERS_PER_CUSTOMER = 10;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Qualifier("orderStatusBackfill")
+    private InitializingBean orderStatusBackfill;
+
+    private MockHttpSession admin;
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        admin = sessionOf(createAdmin());
+        Products product = createProduct(CUSTOMERS * ORDERS_PER_CUSTOMER);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customer = createUser();
+            for (int j = 0; j < ORDERS_PER_CUSTOMER; j++) {
+                orderService.placeOrder(customer.getId(), product.getId(), 1, "1 Test Street", "Upi");
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ordersPagesStayWithinBudget() throws Exception {
+        MvcResult first = mockMvc.perform(get("/admin/orders").session(admin))
+                .andExpect(status().isOk())
+                .andExpect(view().name("admin/admin-orders"))
+                .andReturn();
+        List<Order> orders = (List<Order>) first.getModelAndView().getModel().get("orders");
+        assertThat(orders).hasSize(50);
+        assertThat(first.getModelAndView().getModel().get("hasNext")).isEqualTo(true);
+
+        Object afterId = first.getModelAndView().getModel().get("nextAfterId");
+        LocalDateTime afterCreatedAt = (LocalDateTime) first.getModelAndView().getModel().get("nextAfterCreatedAt");
+        mockMvc.perform(get("/admin/orders").session(admin)
+                        .param("afterId", afterId.toString())
+                        .param("afterCreatedAt", afterCreatedAt.toString()))
+                .andExpect(status().isOk())
+                .andExpect(view().name("admin/admin-orders"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void filteredOrdersStayWithinBudget() throws Exception {
+        MvcResult result = mockMvc.perform(get("/admin/orders").session(admin)
+                        .param("status", "PLACED")
+                        .param("userQuery", customer.getUsername())
+                        .param("sort", "statusDesc"))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<Order> orders = (List<Order>) result.getModelAndView().getModel().get("orders");
+        assertThat(orders).hasSize(ORDERS_PER_CUSTOMER)
+                .allSatisfy(order -> assertThat(order.getUser().getId()).isEqualTo(customer.getId()));
+    }
+
+    // A legacy order without a status, on a database that predates the not null column, is listed exactly once
+    // when paging by status
+    @Test
+    @SuppressWarnings("unchecked")
+    void statusPagesIncludeAnOrderThatHadNoStatus() throws Exception {
+        User buyer = createUser();
+        Products product = createProduct(51);
+        List<Long> placed = new ArrayList<>();
+        for (int i = 0; i < 51; i++) {
+            placed.add(orderService.placeOrder(buyer.getId(), product.getId(), 1, "1 Test Street", "Upi").getId());
+        }
+        jdbcTemplate.update("update orders set status = 'SHIPPED' where id in (?, ?, ?)",
+                placed.get(0), placed.get(25), placed.get(50));
+        jdbcTemplate.execute("alter table orders alter column status drop not null");
+        jdbcTemplate.update("update orders set status = null where id = ?", placed.get(10));
+        orderStatusBackfill.afterPropertiesSet();
+
+        MvcResult first = mockMvc.perform(get("/admin/orders").session(admin)
+                        .param("userQuery", buyer.getEmail())
+                        .param("sort", "statusAsc"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Map<String, Object> model = first.getModelAndView().getModel();
+        List<Order> orders = new ArrayList<>((List<Order>) model.get("orders"));
+        assertThat(model.get("hasNext")).isEqualTo(true);
+
+        MvcResult second = mockMvc.perform(get("/admin/orders").session(admin)
+                        .param("userQuery", buyer.getEmail())
+                        .param("sort", "statusAsc")
+                        .param("afterId", model.get("nextAfterId").toString())
+                        .param("afterCreatedAt", model.get("nextAfterCreatedAt").toString())
+                        .param("afterStatus", model.get("nextAfterStatus").toString()))
+                .andExpect(status().isOk())
+                .andReturn();
+        orders.addAll((List<Order>) second.getModelAndView().getModel().get("orders"));
+        assertThat(second.getModelAndView().getModel().get("hasNext")).isEqualTo(false);
+
+        assertThat(orders).extracting(Order::getId).containsExactlyInAnyOrderElementsOf(placed);
+        assertThat(orders).filteredOn(order -> order.getId().equals(placed.get(10)))
+                .singleElement()
+                .satisfies(order -> assertThat(order.getStatus()).isEqualTo(OrderStatus.PLACED));
+    }
+
+    @Test
+    void customersCannotListOrders() throws Exception {
+        mockMvc.perform(get("/admin/orders").session(sessionOf(customer)))
+                .andExpect(status().is3xxRedirection());
+    }
+}
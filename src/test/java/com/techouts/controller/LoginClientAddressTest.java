@@ -0,0 +1,50 @@
+package com.techouts.controller;
+
+import com.techouts.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// X-Forwarded-For is applied by Tomcat's RemoteIpValve, which MockMvc never reaches, so these logins go through a
+// real server. The test client connects from loopback, which this context does not trust as a proxy.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "server.tomcat.remoteip.internal-proxies=192[.]0[.]2[.]1",
+        "login.rate-limit.address-attempts=1"
+})
+class LoginClientAddressTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void spoofedForwardedForDoesNotChangeTheLimiterKey() {
+        assertThat(login("nobody.1@example.com", "198.51.100.1").getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        // Another identifier and another claimed address, but the same untrusted peer, so the same address limit
+        ResponseEntity<String> spoofed = login("nobody.2@example.com", "198.51.100.2");
+        assertThat(spoofed.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(spoofed.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isNotNull();
+    }
+
+    private ResponseEntity<String> login(String identifier, String forwardedFor) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.set("X-Forwarded-For", forwardedFor);
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("identifier", identifier);
+        form.add("password", "not the password");
+        return restTemplate.postForEntity("/login", new HttpEntity<>(form, headers), String.class);
+    }
+}
@@ -0,0 +1,172 @@
+package com.techouts.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.techouts.PostgresIntegrationTest;
+import com.techouts.dto.OrderSummary;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import com.techouts.service.CartItemsService;
+import com.techouts.service.OrderService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+// Every request of a checkout, from the summary page to the order confirmation, stays within its SQL budget
+// (sql.monitor.budgets in PostgresIntegrationTest) however many lines the cart holds, and so does each page of the
+// order history. The order itself is placed on the checkout queue's threads, outside any request;
+// PlaceOrderStatementCountTest covers that part.
+class OrderControllerTest extends PostgresIntegrationTest {
+    private static final int LINES = 20;
+
+    @Autowired
+    private CartItemsService cartItemsService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void cartCheckoutStaysWithinBudget() throws Exception {
+        User user = createUser();
+        for (int i = 0; i < LINES; i++) {
+            cartItemsService.addToCart(user.getId(), createProduct(10).getId(), 2);
+        }
+        MockHttpSession session = sessionOf(user);
+
+        mockMvc.perform(get("/checkout").session(session))
+                .andExpect(status().isOk())
+                .andExpect(view().name("user/checkout"));
+
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(post("/checkout/place").session(session)
+                        .param("shippingAddress", "1 Test Street")
+                        .param("paymentMode", "Upi")
+                        .param("idempotencyKey", key))
+                .andExpect(redirectedUrl("/checkout/pending?key=" + key));
+
+        long orderId = awaitPlaced(session, key);
+        mockMvc.perform(get("/checkout/pending").session(session).param("key", key))
+                .andExpect(redirectedUrl("/order-success?orderId=" + orderId));
+        mockMvc.perform(get("/order-success").session(session).param("orderId", String.valueOf(orderId)))
+                .andExpect(status().isOk())
+                .andExpect(view().name("user/order-success"));
+        assertThat(cartItemsService.getCartItemCount(user.getId())).isZero();
+    }
+
+    @Test
+    void buyNowCheckoutStaysWithinBudget() throws Exception {
+        User user = createUser();
+        Products product = createProduct(10);
+        MockHttpSession session = sessionOf(user);
+
+        mockMvc.perform(get("/checkout").session(session)
+                        .param("productId", product.getId().toString())
+                        .param("quantity", "3"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("user/checkout"));
+
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(post("/checkout/place").session(session)
+                        .param("productId", product.getId().toString())
+                        .param("quantity", "3")
+                        .param("shippingAddress", "1 Test Street")
+                        .param("paymentMode", "Upi")
+                        .param("idempotencyKey", key))
+                .andExpect(redirectedUrl("/checkout/pending?key=" + key));
+
+        awaitPlaced(session, key);
+        assertThat(stockOf(product.getId())).isEqualTo(7);
+    }
+
+    @Test
+    void invalidCheckoutIsRejectedOnceBeforeQueueing() throws Exception {
+        User user = createUser();
+        Products product = createProduct(10);
+        Counter invalid = meterRegistry.get("shop.checkout.outcomes").tag("outcome", "invalid").counter();
+        double before = invalid.count();
+
+        mockMvc.perform(post("/checkout/place").session(sessionOf(user))
+                        .param("productId", product.getId().toString())
+                        .param("shippingAddress", "1 Test Street")
+                        .param("paymentMode", "Cheque")
+                        .param("idempotencyKey", UUID.randomUUID().toString()))
+                .andExpect(status().isOk())
+                .andExpect(view().name("user/checkout"))
+                .andExpect(model().attribute("error", "Please select a valid payment mode"))
+                .andExpect(model().attribute("paymentModes", orderService.getPaymentModes()));
+
+        assertThat(invalid.count()).isEqualTo(before + 1);
+        assertThat(stockOf(product.getId())).isEqualTo(10);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void orderHistoryPagesStayWithinBudget() throws Exception {
+        User user = createUser();
+        Products product = createProduct(100);
+        for (int i = 0; i < 23; i++) {
+            orderService.placeOrder(user.getId(), product.getId(), 1 + i % 2, "1 Test Street", "Upi");
+        }
+        MockHttpSession session = sessionOf(user);
+
+        List<Long> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        MockHttpServletRequestBuilder request = get("/orders").session(session);
+        while (request != null) {
+            Map<String, Object> model = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("user/orders"))
+                    .andReturn().getModelAndView().getModel();
+            List<OrderSummary> orders = (List<OrderSummary>) model.get("orders");
+            pageSizes.add(orders.size());
+            for (OrderSummary order : orders) {
+                seen.add(order.id());
+                assertThat(order.items()).singleElement()
+                        .satisfies(line -> assertThat(line.productId()).isEqualTo(product.getId()));
+            }
+            request = Boolean.TRUE.equals(model.get("hasNext"))
+                    ? get("/orders").session(session)
+                            .param("afterId", model.get("nextAfterId").toString())
+                            .param("afterCreatedAt", model.get("nextAfterCreatedAt").toString())
+                    : null;
+        }
+
+        assertThat(pageSizes).containsExactly(10, 10, 3);
+        // Newest first, every order exactly once
+        assertThat(seen).doesNotHaveDuplicates().hasSize(23).isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    private long awaitPlaced(MockHttpSession session, String key) {
+        return await().atMost(Duration.ofSeconds(10)).until(() -> {
+            MvcResult result = mockMvc.perform(get("/checkout/status").session(session).param("key", key))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            String body = result.getResponse().getContentAsString();
+            assertThat(JsonPath.<Object>read(body, "$.error")).isNull();
+            Number orderId = JsonPath.read(body, "$.orderId");
+            return orderId == null ? null : orderId.longValue();
+        }, orderId -> orderId != null);
+    }
+}
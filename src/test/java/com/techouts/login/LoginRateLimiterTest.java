@@ -0,0 +1,70 @@
+package com.techouts.login;
+
+import com.techouts.service.LoginRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Windows far longer than a test run, so no window boundary falls between its attempts
+class LoginRateLimiterTest {
+    private static final Duration LONG_WINDOW = Duration.ofDays(365);
+
+    @Test
+    void identifierIsLockedOutAfterMaxFailures() {
+        LoginRateLimiter limiter = limiter(100, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatCode(() -> limiter.checkAllowed("alice", "10.0.0.1")).doesNotThrowAnyException();
+            limiter.failed("alice");
+        }
+
+        assertRejected(() -> limiter.checkAllowed("alice", "10.0.0.1"));
+        // Another address, and the identifier spelled differently, count against the same identifier
+        assertRejected(() -> limiter.checkAllowed(" Alice ", "10.0.0.2"));
+        assertThatCode(() -> limiter.checkAllowed("bob", "10.0.0.1")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void successfulLoginClearsTheFailures() {
+        LoginRateLimiter limiter = limiter(100, 3);
+        limiter.failed("alice");
+        limiter.failed("alice");
+
+        limiter.succeeded("ALICE");
+        limiter.failed("alice");
+        limiter.failed("alice");
+
+        assertThatCode(() -> limiter.checkAllowed("alice", "10.0.0.1")).doesNotThrowAnyException();
+        limiter.failed("alice");
+        assertRejected(() -> limiter.checkAllowed("alice", "10.0.0.1"));
+    }
+
+    @Test
+    void everyAttemptCountsAgainstTheAddress() {
+        LoginRateLimiter limiter = limiter(3, 100);
+
+        for (int i = 0; i < 3; i++) {
+            String identifier = "user" + i;
+            assertThatCode(() -> limiter.checkAllowed(identifier, "10.0.0.1")).doesNotThrowAnyException();
+        }
+
+        assertRejected(() -> limiter.checkAllowed("user3", "10.0.0.1"));
+        assertThatCode(() -> limiter.checkAllowed("user3", "10.0.0.2")).doesNotThrowAnyException();
+    }
+
+    private static LoginRateLimiter limiter(int maxAddressAttempts, int maxIdentifierFailures) {
+        return new LoginRateLimiter(maxAddressAttempts, LONG_WINDOW, maxIdentifierFailures, LONG_WINDOW, 1_000);
+    }
+
+    private static void assertRejected(Runnable attempt) {
+        assertThatThrownBy(attempt::run)
+                .isInstanceOfSatisfying(LoginRejectedException.class, ex -> {
+                    assertThat(ex.getReason()).isEqualTo(LoginRejectedException.Reason.TOO_MANY_ATTEMPTS);
+                    assertThat(ex.getRetryAfter()).isPositive();
+                });
+    }
+}
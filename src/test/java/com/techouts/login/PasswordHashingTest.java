@@ -0,0 +1,154 @@
+package com.techouts.login;
+
+import com.techouts.service.LoginRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The lowest BCrypt cost keeps real hashing fast; a gated encoder holds checks on the hashing threads so the queue
+// and the wait can be filled on purpose
+class PasswordHashingTest {
+    private static final int STRENGTH = 4;
+
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(STRENGTH);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GatedEncoder gated = new GatedEncoder(bcrypt);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private PasswordHashing hashing;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gated.release.countDown();
+        callers.shutdownNow();
+        if (hashing != null) {
+            hashing.stop();
+        }
+    }
+
+    @Test
+    void matchesOnlyTheRightPassword() {
+        hashing = new PasswordHashing(bcrypt, meterRegistry, STRENGTH, 1, 4, Duration.ofSeconds(10));
+        String hash = bcrypt.encode("secret");
+
+        assertThat(hashing.matches("secret", hash)).isTrue();
+        assertThat(hashing.matches("wrong", hash)).isFalse();
+        // An unknown user is still hashed against, and never matches
+        assertThat(hashing.matches("secret", null)).isFalse();
+    }
+
+    @Test
+    void busyWhenTheQueueIsFull() throws Exception {
+        hashing = new PasswordHashing(gated, meterRegistry, STRENGTH, 1, 1, Duration.ofSeconds(10));
+        String hash = bcrypt.encode("secret");
+
+        Future<Boolean> running = callers.submit(() -> hashing.matches("secret", hash));
+        assertThat(gated.started.await(10, TimeUnit.SECONDS)).isTrue();
+        Future<Boolean> queued = callers.submit(() -> hashing.matches("secret", hash));
+        awaitQueued(1);
+
+        assertBusy(() -> hashing.matches("secret", hash));
+
+        gated.release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void busyWhenTheWaitTimesOut() throws Exception {
+        hashing = new PasswordHashing(gated, meterRegistry, STRENGTH, 1, 4, Duration.ofMillis(50));
+        String hash = bcrypt.encode("secret");
+
+        assertBusy(() -> hashing.matches("secret", hash));
+        // Queued behind the held check, and given up on by its login, so it is cancelled before it runs
+        assertBusy(() -> hashing.matches("secret", hash));
+
+        gated.release.countDown();
+        hashing.stop();
+        assertThat(gated.checks).hasValue(1);
+    }
+
+    @Test
+    void rehashesWhenTheCostDiffers() throws Exception {
+        hashing = new PasswordHashing(bcrypt, meterRegistry, STRENGTH, 1, 4, Duration.ofSeconds(10));
+        String oldHash = new BCryptPasswordEncoder(STRENGTH + 1).encode("secret");
+        CompletableFuture<String> saved = new CompletableFuture<>();
+
+        hashing.upgradeIfNeeded("secret", oldHash, saved::complete);
+
+        String newHash = saved.get(10, TimeUnit.SECONDS);
+        assertThat(newHash).startsWith("$2a$04$");
+        assertThat(bcrypt.matches("secret", newHash)).isTrue();
+    }
+
+    @Test
+    void keepsAHashOfTheConfiguredCost() {
+        hashing = new PasswordHashing(bcrypt, meterRegistry, STRENGTH, 1, 4, Duration.ofSeconds(10));
+        AtomicBoolean saved = new AtomicBoolean();
+
+        // Decided before anything is queued, so nothing can be saved later either
+        hashing.upgradeIfNeeded("secret", bcrypt.encode("secret"), hash -> saved.set(true));
+
+        assertThat(saved).isFalse();
+    }
+
+    private void awaitQueued(int checks) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("shop.login.hashing.queued").gauge().value() < checks) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void assertBusy(Runnable login) {
+        assertThatThrownBy(login::run)
+                .isInstanceOfSatisfying(LoginRejectedException.class, ex -> {
+                    assertThat(ex.getReason()).isEqualTo(LoginRejectedException.Reason.BUSY);
+                    assertThat(ex.getRetryAfter()).isPositive();
+                });
+    }
+
+    // Every check waits for release; encode, used for the unknown-user hash and upgrades, does not
+    private static final class GatedEncoder implements PasswordEncoder {
+        final PasswordEncoder delegate;
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger checks = new AtomicInteger();
+
+        GatedEncoder(PasswordEncoder delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return delegate.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            checks.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.techouts.login;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+// The sliding count is the current fixed window's events plus the previous window's, weighted by how much of the
+// previous window the sliding one still overlaps; a clock stands in for System.nanoTime
+class SlidingWindowCounterTest {
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+    // On a fixed window boundary
+    private static final long START = TimeUnit.MINUTES.toNanos(10);
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(WINDOW, 1_000, clock::get);
+
+    @Test
+    void countsEventsWithinTheWindow() {
+        assertThat(counter.count("key")).isZero();
+        assertThat(counter.increment("key")).isEqualTo(1);
+        advance(Duration.ofSeconds(30));
+        assertThat(counter.increment("key")).isEqualTo(2);
+        assertThat(counter.count("key")).isEqualTo(2);
+        assertThat(counter.count("other")).isZero();
+    }
+
+    @Test
+    void previousWindowFadesOutOverTheNext() {
+        for (int i = 0; i < 4; i++) {
+            counter.increment("key");
+        }
+
+        advance(WINDOW);
+        assertThat(counter.count("key")).isCloseTo(4, within(1e-9));
+        advance(Duration.ofSeconds(15));
+        assertThat(counter.count("key")).isCloseTo(3, within(1e-9));
+        assertThat(counter.increment("key")).isCloseTo(4, within(1e-9));
+        advance(Duration.ofSeconds(30));
+        assertThat(counter.count("key")).isCloseTo(2, within(1e-9));
+    }
+
+    @Test
+    void resetsAfterTwoWindows() {
+        for (int i = 0; i < 4; i++) {
+            counter.increment("key");
+        }
+
+        advance(WINDOW.multipliedBy(2));
+        assertThat(counter.count("key")).isZero();
+        assertThat(counter.increment("key")).isEqualTo(1);
+    }
+
+    @Test
+    void carriedOverCountStartsAFreshWindow() {
+        counter.increment("key");
+        advance(WINDOW.plusSeconds(30));
+        counter.increment("key");
+
+        // The first window is now two back, and the second carries its one event at half weight
+        advance(WINDOW);
+        assertThat(counter.count("key")).isCloseTo(0.5, within(1e-9));
+    }
+
+    @Test
+    void resetClearsTheKey() {
+        counter.increment("key");
+        counter.increment("key");
+
+        counter.reset("key");
+
+        assertThat(counter.count("key")).isZero();
+    }
+
+    @Test
+    void untilNextWindowIsTheRestOfTheFixedWindow() {
+        assertThat(counter.untilNextWindow()).isEqualTo(WINDOW);
+        advance(Duration.ofSeconds(15));
+        assertThat(counter.untilNextWindow()).isEqualTo(Duration.ofSeconds(45));
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
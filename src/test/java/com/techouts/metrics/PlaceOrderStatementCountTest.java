@@ -0,0 +1,55 @@
+package com.techouts.metrics;
+
+import com.techouts.PostgresIntegrationTest;
+import com.techouts.entity.Order;
+import com.techouts.entity.User;
+import com.techouts.service.CartItemsService;
+import com.techouts.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Checking out a large cart must cost the same handful of statements as a small one: the lines are loaded in one
+// query, order lines are inserted as one JDBC batch and ids come from pooled sequences. The stock reservation
+// goes through JdbcTemplate and is not counted here; it is a single batch as well.
+class PlaceOrderStatementCountTest extends PostgresIntegrationTest {
+    private static final int LINES = 50;
+    private static final int MAX_STATEMENTS = 10;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartItemsService cartItemsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void fiftyLineCheckoutIssuesBoundedStatements() {
+        User user = createUser();
+        for (int i = 0; i < LINES; i++) {
+            cartItemsService.addToCart(user.getId(), createProduct(10).getId(), 1 + i % 3);
+        }
+
+        // In production this runs on a checkout queue thread; a path with no budget of its own keeps the bound below
+        // the only one checked
+        RequestSqlStats stats = RequestSqlStats.begin(new MockHttpServletRequest("POST", "/place-order"));
+        Order order;
+        try {
+            order = orderService.placeOrder(user.getId(), null, null, "1 Test Street", "Upi");
+        } finally {
+            RequestSqlStats.end();
+        }
+
+        assertThat(stats.getCount()).isLessThanOrEqualTo(MAX_STATEMENTS);
+        // Nothing is issued per line; only the order line id pool may need a second refill when it runs out mid-order
+        assertThat(stats.repeatedStatements(3)).isEmpty();
+        Integer lines = jdbcTemplate.queryForObject(
+                "select count(*) from order_items where order_id = ?", Integer.class, order.getId());
+        assertThat(lines).isEqualTo(LINES);
+    }
+}
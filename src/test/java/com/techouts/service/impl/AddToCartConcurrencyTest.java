@@ -0,0 +1,84 @@
+package com.techouts.service.impl;
+
+import com.techouts.PostgresIntegrationTest;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import com.techouts.service.CartItemsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many requests adding the same product to the same cart at once, starting from no cart line, all go through the
+// single insert ... on conflict do update: one line is created, no add is lost, and the line never exceeds stock
+class AddToCartConcurrencyTest extends PostgresIntegrationTest {
+    private static final int THREADS = 32;
+
+    @Autowired
+    private CartItemsService cartItemsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentAddsAllCount() throws Exception {
+        User user = createUser();
+        Products product = createProduct(1_000);
+
+        // Thread i adds i + 1, so the adds total THREADS * (THREADS + 1) / 2, well within stock
+        List<Integer> accepted = addConcurrently(user, product, i -> i + 1);
+
+        int expected = THREADS * (THREADS + 1) / 2;
+        assertThat(accepted).hasSize(THREADS);
+        assertThat(lineQuantities(user, product)).containsExactly(expected);
+        assertThat(cartItemsService.getCartItemCount(user.getId())).isEqualTo(expected);
+    }
+
+    @Test
+    void concurrentAddsStopAtStock() throws Exception {
+        User user = createUser();
+        Products product = createProduct(THREADS - 7);
+
+        List<Integer> accepted = addConcurrently(user, product, i -> 1);
+
+        assertThat(accepted).hasSize(THREADS - 7);
+        assertThat(lineQuantities(user, product)).containsExactly(THREADS - 7);
+        assertThat(cartItemsService.getCartItemCount(user.getId())).isEqualTo(THREADS - 7);
+    }
+
+    // The quantities of the adds that went through; refusals must be for stock
+    private List<Integer> addConcurrently(User user, Products product, QuantityForThread quantityFor) throws Exception {
+        List<Callable<Integer>> adds = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            int quantity = quantityFor.quantity(i);
+            adds.add(() -> {
+                try {
+                    cartItemsService.addToCart(user.getId(), product.getId(), quantity);
+                    return quantity;
+                } catch (IllegalArgumentException ex) {
+                    assertThat(ex).hasMessage("Not enough stock");
+                    return null;
+                }
+            });
+        }
+        List<Integer> accepted = new ArrayList<>(runConcurrently(adds));
+        accepted.removeIf(Objects::isNull);
+        return accepted;
+    }
+
+    private List<Integer> lineQuantities(User user, Products product) {
+        return jdbcTemplate.queryForList(
+                "select ci.quantity from cart_item ci join cart c on c.id = ci.cart_id where c.user_id = ? and ci.product_id = ?",
+                Integer.class, user.getId(), product.getId());
+    }
+
+    private interface QuantityForThread {
+        int quantity(int thread);
+    }
+}
@@ -0,0 +1,92 @@
+package com.techouts.service.impl;
+
+import com.techouts.PostgresIntegrationTest;
+import com.techouts.entity.Order;
+import com.techouts.entity.OrderStatus;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import com.techouts.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many cancels of the same order released at once, as when the user and an admin cancel together: exactly one goes
+// through, the rest see the order already cancelled, and the stock comes back once. A cancel racing an admin
+// shipping the order also ends with exactly one of them applied.
+class CancelOrderConcurrencyTest extends PostgresIntegrationTest {
+    private static final int THREADS = 8;
+    private static final int RACES = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void stockIsReleasedOnce() throws Exception {
+        User user = createUser();
+        Products product = createProduct(10);
+        Order order = orderService.placeOrder(user.getId(), product.getId(), 3, "1 Test Street", "Upi");
+        assertThat(stockOf(product.getId())).isEqualTo(7);
+
+        List<Callable<Boolean>> cancels = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            cancels.add(() -> {
+                try {
+                    orderService.cancelOrder(user.getId(), order.getId());
+                    return true;
+                } catch (IllegalArgumentException ex) {
+                    assertThat(ex).hasMessage("Order already cancelled");
+                    return false;
+                }
+            });
+        }
+        List<Boolean> outcomes = runConcurrently(cancels);
+
+        assertThat(outcomes).containsOnlyOnce(true);
+        assertThat(stockOf(product.getId())).isEqualTo(10);
+        assertThat(orderService.getOrderById(order.getId()).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+    }
+
+    @Test
+    void cancelAndShipNeverBothApply() throws Exception {
+        User user = createUser();
+        Products product = createProduct(RACES);
+        for (int i = 0; i < RACES; i++) {
+            Order order = orderService.placeOrder(user.getId(), product.getId(), 1, "1 Test Street", "Upi");
+            orderService.updateStatus(order.getId(), OrderStatus.PACKED);
+
+            List<Boolean> outcomes = runConcurrently(List.<Callable<Boolean>>of(
+                    () -> {
+                        try {
+                            orderService.cancelOrder(user.getId(), order.getId());
+                            return true;
+                        } catch (IllegalArgumentException ex) {
+                            assertThat(ex).hasMessage("Only placed or packed orders can be cancelled");
+                            return false;
+                        }
+                    },
+                    () -> {
+                        try {
+                            orderService.updateStatus(order.getId(), OrderStatus.SHIPPED);
+                            return true;
+                        } catch (IllegalArgumentException ex) {
+                            assertThat(ex).hasMessage("Cannot modify delivered/cancelled order");
+                            return false;
+                        }
+                    }));
+
+            assertThat(outcomes).containsOnlyOnce(true);
+            OrderStatus status = orderService.getOrderById(order.getId()).getStatus();
+            assertThat(status).isEqualTo(outcomes.get(0) ? OrderStatus.CANCELLED : OrderStatus.SHIPPED);
+        }
+        // One unit held for each shipped order, none for the cancelled ones
+        long shipped = orderService.getOrderHistory(user.getId(), null, null, RACES).stream()
+                .filter(order -> order.status() == OrderStatus.SHIPPED)
+                .count();
+        assertThat(stockOf(product.getId())).isEqualTo(RACES - (int) shipped);
+    }
+}
@@ -0,0 +1,136 @@
+package com.techouts.service.impl;
+
+import com.techouts.PostgresIntegrationTest;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import com.techouts.service.CartItemsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The cart badge count is cached and kept up to date by deltas rather than re-summed, so after every kind of cart
+// change the count served must still equal the quantities actually stored for the cart. Cart lines are looked up
+// with SQL, never through getCartItems, because that re-syncs the count and would hide a wrong delta.
+class CartItemCountTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private CartItemsService cartItemsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Products first;
+    private Products second;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser();
+        first = createProduct(20);
+        second = createProduct(20);
+        // Cache the empty count, so the changes below adjust a cached entry
+        assertCountMatches();
+    }
+
+    @Test
+    void countFollowsEveryCartChange() {
+        cartItemsService.addToCart(user.getId(), first.getId(), 2);
+        assertCountMatches();
+        cartItemsService.addToCart(user.getId(), first.getId(), 3);
+        assertCountMatches();
+        cartItemsService.addToCart(user.getId(), second.getId(), 1);
+        assertCountMatches();
+
+        cartItemsService.increase(user.getId(), lineOf(first));
+        assertCountMatches();
+        // Refused: a line cannot go below one
+        assertThatThrownBy(() -> cartItemsService.decrease(user.getId(), lineOf(second)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertCountMatches();
+        cartItemsService.decrease(user.getId(), lineOf(first));
+        assertCountMatches();
+
+        cartItemsService.update(user.getId(), lineOf(second), 7);
+        assertCountMatches();
+        cartItemsService.remove(user.getId(), lineOf(first));
+        assertCountMatches();
+
+        cartItemsService.addToCart(user.getId(), first.getId(), 4);
+        cartItemsService.clearCart(user.getId());
+        assertCountMatches();
+        assertThat(cartItemsService.getCartItemCount(user.getId())).isZero();
+    }
+
+    @Test
+    void refusedChangesLeaveTheCountAlone() {
+        cartItemsService.addToCart(user.getId(), first.getId(), 19);
+        assertCountMatches();
+
+        assertThatThrownBy(() -> cartItemsService.addToCart(user.getId(), first.getId(), 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertCountMatches();
+        cartItemsService.increase(user.getId(), lineOf(first));
+        assertThatThrownBy(() -> cartItemsService.increase(user.getId(), lineOf(first)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertCountMatches();
+        assertThatThrownBy(() -> cartItemsService.update(user.getId(), lineOf(first), 21))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertCountMatches();
+        assertThatThrownBy(() -> cartItemsService.remove(user.getId(), -1L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertCountMatches();
+    }
+
+    @Test
+    void countSurvivesConcurrentChanges() throws Exception {
+        cartItemsService.addToCart(user.getId(), first.getId(), 1);
+        cartItemsService.addToCart(user.getId(), second.getId(), 1);
+        Long firstLine = lineOf(first);
+        Long secondLine = lineOf(second);
+        assertCountMatches();
+
+        int threads = 8;
+        List<Callable<Void>> changes = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            changes.add(() -> {
+                for (int i = 0; i < 10; i++) {
+                    try {
+                        switch ((thread + i) % 4) {
+                            case 0 -> cartItemsService.addToCart(user.getId(), first.getId(), 1);
+                            case 1 -> cartItemsService.decrease(user.getId(), firstLine);
+                            case 2 -> cartItemsService.increase(user.getId(), secondLine);
+                            default -> cartItemsService.decrease(user.getId(), secondLine);
+                        }
+                    } catch (IllegalArgumentException ex) {
+                        // Out of stock or already at one: refused, and nothing changed
+                    }
+                }
+                return null;
+            });
+        }
+        runConcurrently(changes);
+        assertCountMatches();
+    }
+
+    private void assertCountMatches() {
+        Integer stored = jdbcTemplate.queryForObject(
+                "select coalesce(sum(quantity), 0) from cart_item ci join cart c on c.id = ci.cart_id where c.user_id = ?",
+                Integer.class, user.getId());
+        assertThat(cartItemsService.getCartItemCount(user.getId())).isEqualTo(stored);
+    }
+
+    private Long lineOf(Products product) {
+        return jdbcTemplate.queryForObject(
+                "select ci.id from cart_item ci join cart c on c.id = ci.cart_id where c.user_id = ? and ci.product_id = ?",
+                Long.class, user.getId(), product.getId());
+    }
+}
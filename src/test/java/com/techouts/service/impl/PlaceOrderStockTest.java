@@ -0,0 +1,102 @@
+package com.techouts.service.impl;
+
+import com.techouts.PostgresIntegrationTest;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import com.techouts.service.CartItemsService;
+import com.techouts.service.CheckoutRejectedException;
+import com.techouts.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// More buyers than stock, all released at once: exactly the stock's worth of orders go through and the rest are
+// turned away as out of stock, through both the buy-now decrement and the cart reservation
+class PlaceOrderStockTest extends PostgresIntegrationTest {
+    private static final int BUYERS = 24;
+    private static final int STOCK = 7;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartItemsService cartItemsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void buyNowNeverOversells() throws Exception {
+        Products product = createProduct(STOCK);
+        List<User> buyers = createUsers(BUYERS);
+
+        List<Boolean> outcomes = runCheckouts(buyers, buyer -> () ->
+                orderService.placeOrder(buyer.getId(), product.getId(), 1, "1 Test Street", "Upi"));
+
+        assertSoldExactlyStock(product, outcomes);
+    }
+
+    @Test
+    void cartCheckoutNeverOversells() throws Exception {
+        Products product = createProduct(STOCK);
+        // A second, plentiful line makes every checkout reserve several rows
+        Products plentiful = createProduct(1_000);
+        List<User> buyers = createUsers(BUYERS);
+        for (User buyer : buyers) {
+            cartItemsService.addToCart(buyer.getId(), product.getId(), 1);
+            cartItemsService.addToCart(buyer.getId(), plentiful.getId(), 2);
+        }
+
+        List<Boolean> outcomes = runCheckouts(buyers, buyer -> () ->
+                orderService.placeOrder(buyer.getId(), null, null, "1 Test Street", "Upi"));
+
+        assertSoldExactlyStock(product, outcomes);
+        // Rejected checkouts roll back the lines they had already reserved
+        assertThat(stockOf(plentiful.getId())).isEqualTo(1_000 - 2 * STOCK);
+    }
+
+    private void assertSoldExactlyStock(Products product, List<Boolean> outcomes) {
+        long placed = outcomes.stream().filter(Boolean::booleanValue).count();
+        assertThat(placed).isEqualTo(STOCK);
+        assertThat(stockOf(product.getId())).isZero();
+        Integer ordered = jdbcTemplate.queryForObject(
+                "select coalesce(sum(quantity), 0) from order_items where product_id = ?", Integer.class, product.getId());
+        assertThat(ordered).isEqualTo(STOCK);
+    }
+
+    private List<User> createUsers(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(createUser());
+        }
+        return users;
+    }
+
+    // True for each placed order, false for each out-of-stock rejection; anything else fails the test
+    private static List<Boolean> runCheckouts(List<User> buyers, CheckoutCall call) throws Exception {
+        List<Callable<Boolean>> checkouts = new ArrayList<>(buyers.size());
+        for (User buyer : buyers) {
+            Callable<?> checkout = call.forBuyer(buyer);
+            checkouts.add(() -> {
+                try {
+                    checkout.call();
+                    return true;
+                } catch (CheckoutRejectedException ex) {
+                    assertThat(ex.getReason()).isEqualTo(CheckoutRejectedException.Reason.OUT_OF_STOCK);
+                    return false;
+                }
+            });
+        }
+        return runConcurrently(checkouts);
+    }
+
+    private interface CheckoutCall {
+        Callable<?> forBuyer(User buyer);
+    }
+}
@@ -0,0 +1,48 @@
+package com.techouts.service.impl;
+
+import com.techouts.PostgresIntegrationTest;
+import com.techouts.dto.ProductDetails;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import com.techouts.service.OrderService;
+import com.techouts.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// getById hands every request the same cached value, so editing an entity of the same row must not reach it, while
+// a committed stock change must
+class ProductDetailsCacheTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Test
+    void cachedDetailsAreASnapshotOfTheRow() {
+        Products product = createProduct(5);
+        ProductDetails cached = productService.getById(product.getId());
+        assertThat(cached.stock()).isEqualTo(5);
+
+        // Loaded for a write and changed, but never saved
+        Products entity = productRepository.findById(product.getId()).orElseThrow();
+        entity.setStock(0);
+        entity.setName("Edited but not saved");
+
+        assertThat(productService.getById(product.getId())).isEqualTo(cached);
+    }
+
+    @Test
+    void stockChangeEvictsTheSnapshot() {
+        User buyer = createUser();
+        Products product = createProduct(5);
+        assertThat(productService.getById(product.getId()).stock()).isEqualTo(5);
+
+        orderService.placeOrder(buyer.getId(), product.getId(), 2, "1 Test Street", "Upi");
+
+        assertThat(productService.getById(product.getId()).stock()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,84 @@
+package com.techouts.service.impl;
+
+import com.techouts.PostgresIntegrationTest;
+import com.techouts.dto.ProductImportResult;
+import com.techouts.entity.Products;
+import com.techouts.service.ProductImportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Stock keeps moving while an exported file is edited, so an import only writes stock that the row changes from
+// the expected_stock it was exported with, and only while the product still has exactly that
+class ProductImportStockTest extends PostgresIntegrationTest {
+    private static final String HEADER = "id,name,category,price,stock,expected_stock,description,image_url\n";
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Test
+    void reimportingAnOlderExportKeepsTheSales() throws IOException {
+        Products product = createProduct(10);
+        String exported = row(product, 10, 10, "Renamed");
+        productRepository.reserveStock(Map.of(product.getId(), 3));
+
+        ProductImportResult result = importCsv(exported);
+
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(stockOf(product.getId())).isEqualTo(7);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    void changedStockAppliesWhileItIsStillTheExpectedOne() throws IOException {
+        Products product = createProduct(10);
+
+        ProductImportResult result = importCsv(row(product, 25, 10, product.getName()));
+
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.stockIgnored()).isZero();
+        assertThat(stockOf(product.getId())).isEqualTo(25);
+    }
+
+    @Test
+    void changedStockIsRejectedOnceTheProductSold() throws IOException {
+        Products product = createProduct(10);
+        productRepository.reserveStock(Map.of(product.getId(), 2));
+
+        ProductImportResult result = importCsv(row(product, 25, 10, "Renamed"));
+
+        assertThat(result.rejected()).isEqualTo(1);
+        assertThat(result.errors()).extracting(ProductImportResult.RowError::message)
+                .containsExactly("Stock is 8, expected 10");
+        assertThat(stockOf(product.getId())).isEqualTo(8);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getName()).isEqualTo(product.getName());
+    }
+
+    @Test
+    void withoutExpectedStockAnUpdateLeavesStockAlone() throws IOException {
+        Products product = createProduct(10);
+
+        ProductImportResult result = importCsv(row(product, 25, null, product.getName()));
+
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.stockIgnored()).isEqualTo(1);
+        assertThat(stockOf(product.getId())).isEqualTo(10);
+    }
+
+    private ProductImportResult importCsv(String rows) throws IOException {
+        return productImportService.importProducts(
+                new ByteArrayInputStream((HEADER + rows).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String row(Products product, int stock, Integer expectedStock, String name) {
+        return product.getId() + "," + name + "," + product.getCategory() + "," + product.getPrice() + "," + stock
+                + "," + (expectedStock == null ? "" : expectedStock) + "," + product.getDescription() + ","
+                + product.getImageUrl() + "\n";
+    }
+}
@@ -0,0 +1,77 @@
+package com.techouts.stats;
+
+import com.techouts.PostgresIntegrationTest;
+import com.techouts.entity.Order;
+import com.techouts.entity.Products;
+import com.techouts.entity.User;
+import com.techouts.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Reconciliations running back to back while orders are placed and cancelled: every change is counted exactly
+// once, whether it committed before a reconciliation's snapshot or while its queries ran
+class DashboardStatsReconcileTest extends PostgresIntegrationTest {
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 25;
+
+    @Autowired
+    private DashboardStats dashboardStats;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void changesDuringReconciliationAreCountedOnce() throws Exception {
+        Products product = createProduct(THREADS * ORDERS_PER_THREAD);
+        List<User> buyers = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            buyers.add(createUser());
+        }
+        dashboardStats.reconcile();
+
+        // Counted down by each writer as it finishes, even by failing, so the reconciler always stops
+        CountDownLatch writing = new CountDownLatch(THREADS);
+        List<Callable<Void>> tasks = new ArrayList<>(THREADS + 1);
+        tasks.add(() -> {
+            while (writing.getCount() > 0) {
+                dashboardStats.reconcile();
+            }
+            return null;
+        });
+        for (User buyer : buyers) {
+            tasks.add(() -> {
+                try {
+                    for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                        Order order = orderService.placeOrder(buyer.getId(), product.getId(), 1, "1 Test Street", "Upi");
+                        if (i % 3 == 0) {
+                            orderService.cancelOrder(buyer.getId(), order.getId());
+                        }
+                    }
+                } finally {
+                    writing.countDown();
+                }
+                return null;
+            });
+        }
+        runConcurrently(tasks);
+
+        DashboardStats.Snapshot snapshot = dashboardStats.snapshot();
+        assertThat(snapshot.orders()).isEqualTo(
+                jdbcTemplate.queryForObject("select count(*) from orders", Long.class));
+        assertThat(snapshot.revenue()).isEqualByComparingTo(jdbcTemplate.queryForObject(
+                "select coalesce(sum(total_amount), 0) from orders where status is null or status <> 'CANCELLED'",
+                BigDecimal.class));
+    }
+}